@@ -0,0 +1,37 @@
+package com.CollegeResources.config;
+
+import com.CollegeResources.model.Role;
+import com.CollegeResources.model.User;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * Principal set by JwtAuthenticationFilter. Carries the fields access checks
+ * need so controllers do not have to load the user again.
+ */
+public class AuthenticatedUser extends org.springframework.security.core.userdetails.User {
+
+    private final Role role;
+    private final String department;
+    private final String batchYear;
+
+    public AuthenticatedUser(User user, Collection<? extends GrantedAuthority> authorities) {
+        super(user.getEmail(), "", authorities); // Empty password since we're using JWT
+        this.role = user.getRole();
+        this.department = user.getDepartment();
+        this.batchYear = user.getBatchYear();
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public String getBatchYear() {
+        return batchYear;
+    }
+}
@@ -41,6 +41,7 @@ public class SecurityConfig {
                         .requestMatchers("api/materials/direct-download/**").permitAll()
                         .requestMatchers("api/materials/view/**").permitAll()
                         .requestMatchers("api/mcq/**").authenticated()
+                        .requestMatchers("api/quiz/**").authenticated()
 
                         .requestMatchers("api/admin/**").hasRole("ADMIN")
                         .requestMatchers("api/dashboard/**").authenticated()
@@ -0,0 +1,23 @@
+package com.CollegeResources.config;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * In-process vector store that replaces MongoDB Atlas when
+ * mcq.retrieval.vector-store=simple, e.g. in tests or local development.
+ * The Atlas auto-configuration backs off once this bean exists.
+ */
+@Configuration
+@ConditionalOnProperty(name = "mcq.retrieval.vector-store", havingValue = "simple")
+public class VectorStoreConfig {
+
+    @Bean
+    public VectorStore vectorStore(EmbeddingModel embeddingModel) {
+        return SimpleVectorStore.builder(embeddingModel).build();
+    }
+}
@@ -2,6 +2,7 @@ package com.CollegeResources.controller;
 
 import com.CollegeResources.model.User;
 import com.CollegeResources.repository.UserRepository;
+import com.CollegeResources.service.McqMetricsService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,9 +16,11 @@ import java.util.stream.Collectors;
 public class AdminController {
 
     private final UserRepository userRepository;
+    private final McqMetricsService mcqMetricsService;
 
-    public AdminController(UserRepository userRepository) {
+    public AdminController(UserRepository userRepository, McqMetricsService mcqMetricsService) {
         this.userRepository = userRepository;
+        this.mcqMetricsService = mcqMetricsService;
     }
 
     // Get all users
@@ -68,4 +71,10 @@ public class AdminController {
         return ResponseEntity.ok(users);
     }
 
+    // Get model token usage and estimated cost of MCQ generation per course
+    @GetMapping("/mcq/costs")
+    public ResponseEntity<?> getMcqCosts() {
+        return ResponseEntity.ok(mcqMetricsService.getCourseCosts());
+    }
+
 }
\ No newline at end of file
@@ -5,12 +5,14 @@ import com.CollegeResources.model.Role;
 import com.CollegeResources.model.User;
 import com.CollegeResources.repository.UserRepository;
 import com.CollegeResources.service.CourseService;
+import com.CollegeResources.service.StudyMaterialService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,10 +24,13 @@ public class CourseController {
 
     private final CourseService courseService;
     private final UserRepository userRepository;
+    private final StudyMaterialService materialService;
 
-    public CourseController(CourseService courseService, UserRepository userRepository) {
+    public CourseController(CourseService courseService, UserRepository userRepository,
+                            StudyMaterialService materialService) {
         this.courseService = courseService;
         this.userRepository = userRepository;
+        this.materialService = materialService;
     }
 
     // Student endpoint to get their current courses
@@ -139,6 +144,14 @@ public class CourseController {
             return ResponseEntity.notFound().build();
         }
 
+        // Tombstone the course's materials; objects are removed in the background
+        try {
+            materialService.deleteMaterialsByCourse(id);
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error deleting course materials: " + e.getMessage());
+        }
+
         courseService.deleteCourse(id);
         return ResponseEntity.ok("Course deleted successfully");
     }
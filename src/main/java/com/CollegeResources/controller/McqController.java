@@ -1,14 +1,29 @@
 package com.CollegeResources.controller;
 
+import com.CollegeResources.dto.McqJobStatus;
+import com.CollegeResources.dto.ServedQuestion;
 import com.CollegeResources.model.McqQuestion;
 import com.CollegeResources.model.McqRequest;
 import com.CollegeResources.model.McqResponse;
 import com.CollegeResources.service.McqGenerationService;
+import com.CollegeResources.service.McqJobService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @RestController
 @RequestMapping("/api/mcq")
@@ -17,6 +32,14 @@ public class McqController {
     @Autowired
     private McqGenerationService mcqGenerationService;
 
+    @Autowired
+    private McqJobService mcqJobService;
+
+    @Value("${mcq.stream.timeout-ms:180000}")
+    private long streamTimeoutMs;
+
+    private final ExecutorService streamExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
     @PostMapping("/generate")
     public ResponseEntity<McqResponse> generateMcqs(@RequestBody McqRequest request) {
         try {
@@ -25,20 +48,14 @@ public class McqController {
                 return ResponseEntity.badRequest().body(null);
             }
 
-            // Default to 15 questions if not specified or invalid
-            if (request.getNumberOfQuestions() <= 0) {
-                request.setNumberOfQuestions(15);
-            } else if (request.getNumberOfQuestions() > 30) {
-                // Limit to maximum 30 questions
-                request.setNumberOfQuestions(30);
-            }
+            applyQuestionLimits(request);
 
-            // Generate MCQs
-            List<McqQuestion> questions = mcqGenerationService.generateMcqQuestions(request);
+            // Generate MCQs, preferring banked questions this user has not seen
+            List<McqQuestion> questions = mcqGenerationService.generateMcqQuestions(request, currentUserEmail());
 
-            // Create response
+            // Create response; answers are only revealed by grading an attempt
             McqResponse response = new McqResponse();
-            response.setQuestions(questions);
+            response.setQuestions(ServedQuestion.of(questions));
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -46,4 +63,99 @@ public class McqController {
             return ResponseEntity.internalServerError().body(null);
         }
     }
-}
\ No newline at end of file
+
+    // Streams questions as server-sent events: one "question" event each, then "done"
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamMcqs(@RequestBody McqRequest request) {
+        if (request.getTopics() == null || request.getTopics().isEmpty()) {
+            return ResponseEntity.badRequest().body("At least one topic is required");
+        }
+
+        applyQuestionLimits(request);
+        String userEmail = currentUserEmail();
+
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        streamExecutor.submit(() -> {
+            try {
+                int delivered = mcqGenerationService.streamMcqQuestions(request, userEmail, question -> {
+                    try {
+                        emitter.send(SseEmitter.event().name("question").data(ServedQuestion.of(question), MediaType.APPLICATION_JSON));
+                    } catch (IOException e) {
+                        // Client went away; abort generation
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                emitter.send(SseEmitter.event().name("done").data(delivered));
+                emitter.complete();
+            } catch (Exception e) {
+                try {
+                    emitter.send(SseEmitter.event().name("error").data("Failed to generate questions: " + e.getMessage()));
+                    emitter.complete();
+                } catch (Exception sendFailure) {
+                    emitter.completeWithError(e);
+                }
+            }
+        });
+        return ResponseEntity.ok(emitter);
+    }
+
+    // Queues generation and returns the job id straight away
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitJob(@RequestBody McqRequest request) {
+        if (request.getTopics() == null || request.getTopics().isEmpty()) {
+            return ResponseEntity.badRequest().body("At least one topic is required");
+        }
+        applyQuestionLimits(request);
+
+        try {
+            String jobId = mcqJobService.submit(request, currentUserEmail());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("jobId", jobId));
+        } catch (McqJobService.JobLimitException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(e.getMessage());
+        } catch (McqJobService.QueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    // Polls a job; the questions are included once it has completed
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getJob(@PathVariable String jobId) {
+        Optional<McqJobStatus> status = mcqJobService.getStatus(jobId, currentUserEmail());
+        if (status.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Job not found");
+        }
+        return ResponseEntity.ok(status.get());
+    }
+
+    // Subscribes to a job's status changes as server-sent events
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> subscribeToJob(@PathVariable String jobId) {
+        Optional<SseEmitter> emitter = mcqJobService.subscribe(jobId, currentUserEmail(), streamTimeoutMs);
+        if (emitter.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Job not found");
+        }
+        return ResponseEntity.ok(emitter.get());
+    }
+
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<?> cancelJob(@PathVariable String jobId) {
+        if (!mcqJobService.cancel(jobId, currentUserEmail())) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Job not found");
+        }
+        return ResponseEntity.ok("Job cancelled");
+    }
+
+    // Default to 15 questions if not specified or invalid, at most 30
+    private void applyQuestionLimits(McqRequest request) {
+        if (request.getNumberOfQuestions() <= 0) {
+            request.setNumberOfQuestions(15);
+        } else if (request.getNumberOfQuestions() > 30) {
+            request.setNumberOfQuestions(30);
+        }
+    }
+
+    private String currentUserEmail() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null ? auth.getName() : null;
+    }
+}
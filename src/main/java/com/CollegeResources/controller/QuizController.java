@@ -0,0 +1,122 @@
+package com.CollegeResources.controller;
+
+import com.CollegeResources.dto.QuizSubmission;
+import com.CollegeResources.model.QuizAttempt;
+import com.CollegeResources.model.User;
+import com.CollegeResources.repository.UserRepository;
+import com.CollegeResources.service.CourseAccessService;
+import com.CollegeResources.service.QuizAttemptService;
+import com.CollegeResources.service.ReviewScheduleService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/quiz")
+public class QuizController {
+
+    private final QuizAttemptService quizAttemptService;
+    private final ReviewScheduleService reviewScheduleService;
+    private final CourseAccessService courseAccessService;
+    private final UserRepository userRepository;
+
+    public QuizController(QuizAttemptService quizAttemptService, ReviewScheduleService reviewScheduleService,
+                          CourseAccessService courseAccessService, UserRepository userRepository) {
+        this.quizAttemptService = quizAttemptService;
+        this.reviewScheduleService = reviewScheduleService;
+        this.courseAccessService = courseAccessService;
+        this.userRepository = userRepository;
+    }
+
+    // Grade answers to served questions and record the attempt
+    @PostMapping("/attempts")
+    public ResponseEntity<?> submitAttempt(@RequestBody QuizSubmission submission) {
+        User user = currentUser();
+        if (user == null) {
+            return ResponseEntity.badRequest().body("User not found");
+        }
+
+        try {
+            QuizAttempt attempt = quizAttemptService.submit(submission, user);
+            return ResponseEntity.ok(attempt);
+        } catch (QuizAttemptService.InvalidAttemptException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (QuizAttemptService.BacklogFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    // Top students of a course, with the caller's own points
+    @GetMapping("/leaderboard/{courseId}")
+    public ResponseEntity<?> getCourseLeaderboard(@PathVariable String courseId,
+                                                  @RequestParam(defaultValue = "10") int limit) {
+        ResponseEntity<?> denied = checkCourseAccess(courseId);
+        if (denied != null) {
+            return denied;
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("leaderboard", quizAttemptService.getCourseLeaderboard(courseId, clamp(limit)));
+        response.put("points", quizAttemptService.getPoints(courseId, currentUserEmail()));
+        return ResponseEntity.ok(response);
+    }
+
+    // Top students of a course within one batch
+    @GetMapping("/leaderboard/{courseId}/batch/{batchYear}")
+    public ResponseEntity<?> getBatchLeaderboard(@PathVariable String courseId, @PathVariable String batchYear,
+                                                 @RequestParam(defaultValue = "10") int limit) {
+        ResponseEntity<?> denied = checkCourseAccess(courseId);
+        if (denied != null) {
+            return denied;
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("leaderboard", quizAttemptService.getBatchLeaderboard(courseId, batchYear, clamp(limit)));
+        response.put("points", quizAttemptService.getPoints(courseId, currentUserEmail()));
+        return ResponseEntity.ok(response);
+    }
+
+    // Questions due for review now, earliest first, optionally for one course
+    @GetMapping("/review/due")
+    public ResponseEntity<?> getDueReviews(@RequestParam(required = false) String courseId,
+                                           @RequestParam(defaultValue = "20") int limit) {
+        String email = currentUserEmail();
+        Map<String, Object> response = new HashMap<>();
+        response.put("questions", reviewScheduleService.getDue(email, courseId, clamp(limit)));
+        response.put("dueCount", reviewScheduleService.countDue(email, courseId));
+        return ResponseEntity.ok(response);
+    }
+
+    // Leaderboards list student names, so only those who may see the course get them
+    private ResponseEntity<?> checkCourseAccess(String courseId) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        switch (courseAccessService.checkAccess(auth, courseId)) {
+            case NOT_FOUND:
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Course not found");
+            case FORBIDDEN:
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You don't have access to this course");
+            default:
+                return null;
+        }
+    }
+
+    // Between 1 and 100 entries
+    private int clamp(int limit) {
+        return Math.max(1, Math.min(limit, 100));
+    }
+
+    private User currentUser() {
+        String email = currentUserEmail();
+        return email == null ? null : userRepository.findByEmail(email);
+    }
+
+    private String currentUserEmail() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null ? auth.getName() : null;
+    }
+}
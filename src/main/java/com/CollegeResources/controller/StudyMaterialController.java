@@ -1,24 +1,24 @@
 package com.CollegeResources.controller;
 
+import com.CollegeResources.dto.BatchUploadResult;
 import com.CollegeResources.model.Course;
 import com.CollegeResources.model.Role;
 import com.CollegeResources.model.StudyMaterial;
 import com.CollegeResources.model.User;
 import com.CollegeResources.repository.StudyMaterialRepository;
 import com.CollegeResources.repository.UserRepository;
+import com.CollegeResources.service.CourseAccessService;
 import com.CollegeResources.service.CourseService;
+import com.CollegeResources.service.MaterialBundleService;
+import com.CollegeResources.service.MaterialIndexService;
+import com.CollegeResources.service.MaterialUsageService;
+import com.CollegeResources.service.PdfPreviewService;
 import com.CollegeResources.service.StudyMaterialService;
-import com.amazonaws.auth.AWSStaticCredentialsProvider;
-import com.amazonaws.auth.BasicAWSCredentials;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
-import com.amazonaws.services.s3.model.AmazonS3Exception;
-import com.amazonaws.services.s3.model.ObjectMetadata;
-import com.amazonaws.services.s3.model.S3Object;
+import com.CollegeResources.service.TrendingService;
+import com.CollegeResources.storage.BlobMetadata;
+import com.CollegeResources.storage.BlobStorage;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -27,6 +27,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.*;
 import java.net.MalformedURLException;
@@ -46,30 +47,35 @@ public class StudyMaterialController {
     private final StudyMaterialService materialService;
     private final CourseService courseService;
     private final UserRepository userRepository;
-    private final String uploadDir;
     private final StudyMaterialRepository studyMaterialRepository;
-
-    @Value("${s3.bucket.name}")
-    private String bucketName;
-
-    @Value("${cloud.aws.region.static}")
-    private String region;
-
-    @Value("${cloud.aws.credentials.access-key}")
-    private String accessKey;
-
-    @Value("${cloud.aws.credentials.secret-key}")
-    private String secretKey;
-
+    private final BlobStorage blobStorage;
+    private final MaterialBundleService bundleService;
+    private final PdfPreviewService previewService;
+    private final CourseAccessService courseAccessService;
+    private final MaterialUsageService usageService;
+    private final TrendingService trendingService;
+    private final MaterialIndexService materialIndexService;
 
     public StudyMaterialController(StudyMaterialService materialService,
                                    CourseService courseService,
-                                   UserRepository userRepository, StudyMaterialRepository studyMaterialRepository) {
+                                   UserRepository userRepository, StudyMaterialRepository studyMaterialRepository,
+                                   BlobStorage blobStorage, MaterialBundleService bundleService,
+                                   PdfPreviewService previewService,
+                                   CourseAccessService courseAccessService,
+                                   MaterialUsageService usageService,
+                                   TrendingService trendingService,
+                                   MaterialIndexService materialIndexService) {
         this.materialService = materialService;
         this.courseService = courseService;
         this.userRepository = userRepository;
         this.studyMaterialRepository = studyMaterialRepository;
-        this.uploadDir = "uploads"; // Should match the value in application.properties
+        this.blobStorage = blobStorage;
+        this.bundleService = bundleService;
+        this.previewService = previewService;
+        this.courseAccessService = courseAccessService;
+        this.usageService = usageService;
+        this.trendingService = trendingService;
+        this.materialIndexService = materialIndexService;
     }
 
     // Student endpoint to get materials for a course
@@ -77,30 +83,75 @@ public class StudyMaterialController {
     public ResponseEntity<?> getMaterialsForCourse(@PathVariable String courseId) {
         // Validate user has access to this course
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User user = userRepository.findByEmail(auth.getName());
-
-        if (user == null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not found");
+        ResponseEntity<?> denied = checkCourseAccess(auth, courseId, "You don't have access to this course");
+        if (denied != null) {
+            return denied;
         }
 
-        // If admin, allow access
-        if (user.getRole() != Role.ADMIN) {
-            // For students, check if the course belongs to their department and semester
-            Optional<Course> courseOpt = courseService.getCourseById(courseId);
-            if (!courseOpt.isPresent()) {
-                return ResponseEntity.notFound().build();
-            }
+        List<StudyMaterial> materials = materialService.getMaterialsByCourse(courseId);
+        return ResponseEntity.ok(materials);
+    }
 
-            Course course = courseOpt.get();
-            if (!course.getDepartment().equals(user.getDepartment()) ||
-                    !course.getBatchYear().equals(user.getBatchYear())) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                        .body("You don't have access to this course");
-            }
+    // Download every material of a course as one ZIP archive
+    @GetMapping("/course/{courseId}/bundle")
+    public void downloadCourseBundle(@PathVariable String courseId, HttpServletResponse response) throws IOException {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        switch (courseAccessService.checkAccess(auth, courseId)) {
+            case NOT_FOUND:
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            case FORBIDDEN:
+                response.sendError(HttpServletResponse.SC_FORBIDDEN, "You don't have access to this course");
+                return;
+            default:
+                break;
+        }
+
+        Optional<Course> courseOpt = courseService.getCourseById(courseId);
+        if (!courseOpt.isPresent()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
+        Course course = courseOpt.get();
 
         List<StudyMaterial> materials = materialService.getMaterialsByCourse(courseId);
-        return ResponseEntity.ok(materials);
+
+        response.setContentType("application/zip");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + course.getCourseCode() + ".zip\"");
+
+        try {
+            bundleService.writeBundle(materials, response.getOutputStream());
+        } catch (IOException e) {
+            // Usually the client disconnected mid-stream; headers are already sent
+            System.out.println("Bundle download aborted for course " + courseId + ": " + e.getMessage());
+        }
+    }
+
+    // Most downloaded materials of a course
+    @GetMapping("/course/{courseId}/most-downloaded")
+    public ResponseEntity<?> getMostDownloaded(@PathVariable String courseId,
+                                               @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        ResponseEntity<?> denied = checkCourseAccess(auth, courseId, "You don't have access to this course");
+        if (denied != null) {
+            return denied;
+        }
+
+        if (limit < 1 || limit > 100) {
+            return ResponseEntity.badRequest().body("Limit must be between 1 and 100");
+        }
+
+        return ResponseEntity.ok(materialService.getMostDownloaded(courseId, limit));
+    }
+
+    // Trending materials, overall or for one department
+    @GetMapping("/trending")
+    public ResponseEntity<?> getTrending(@RequestParam(value = "department", required = false) String department,
+                                         @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        if (limit < 1 || limit > 50) {
+            return ResponseEntity.badRequest().body("Limit must be between 1 and 50");
+        }
+        return ResponseEntity.ok(trendingService.getTrending(department, limit));
     }
 
     // Download a material file
@@ -122,50 +173,23 @@ public class StudyMaterialController {
 
         // Check if user has access to this material
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User user = userRepository.findByEmail(auth.getName());
-
-        if (user == null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not found");
-        }
-
-        // If not admin, check access
-        if (user.getRole() != Role.ADMIN) {
-            Optional<Course> courseOpt = courseService.getCourseById(material.getCourseId());
-            if (!courseOpt.isPresent()) {
-                return ResponseEntity.notFound().build();
-            }
-
-            Course course = courseOpt.get();
-            if (!course.getDepartment().equals(user.getDepartment()) ||
-                    !course.getBatchYear().equals(user.getBatchYear())) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                        .body("You don't have access to this material");
-            }
+        ResponseEntity<?> denied = checkCourseAccess(auth, material.getCourseId(),
+                "You don't have access to this material");
+        if (denied != null) {
+            return denied;
         }
 
-        // Serve the file
+        // Serve the file from storage; the material's filePath is not used any more
+        String key = materialService.getObjectKey(material);
         try {
-            Path uploadDirectory = Paths.get(uploadDir);
-            System.out.println("Upload directory absolute path: " + uploadDirectory.toAbsolutePath());
-
-            Path filePath = uploadDirectory.resolve(material.getFilePath()).normalize();
-            System.out.println("Trying to resolve file at: " + filePath.toAbsolutePath());
-
-            if (Files.exists(filePath)) {
-                System.out.println("File exists on disk: " + filePath);
-                System.out.println("File size: " + Files.size(filePath) + " bytes");
-            } else {
-                System.out.println("FILE DOES NOT EXIST at path: " + filePath);
-                // Check if the upload directory exists
-                if (!Files.exists(uploadDirectory)) {
-                    System.out.println("Upload directory does not exist!");
-                }
+            Optional<BlobMetadata> blob = key == null ? Optional.empty() : blobStorage.head(key);
+            if (blob.isEmpty()) {
+                System.out.println("Stored object missing for material " + materialId + ", key: " + key);
                 return ResponseEntity.notFound().build();
             }
 
-            Resource resource = new UrlResource(filePath.toUri());
+            long fileSize = blob.get().getSize();
             String contentType = determineContentType(material.getFileType());
-            System.out.println("Serving with content type: " + contentType);
 
             HttpHeaders headers = new HttpHeaders();
             headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + material.getFileName() + "\"");
@@ -173,11 +197,15 @@ public class StudyMaterialController {
             headers.add(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate");
             headers.add(HttpHeaders.PRAGMA, "no-cache");
             headers.add(HttpHeaders.EXPIRES, "0");
+            headers.setContentLength(fileSize);
+
+            usageService.recordDownload(material);
 
+            StreamingResponseBody body = out -> blobStorage.transferTo(key, 0, fileSize, out);
             return ResponseEntity
                     .ok()
                     .headers(headers)
-                    .body(resource);
+                    .body(body);
 
         } catch (Exception e) {
             System.err.println("Error during file download: " + e.getMessage());
@@ -187,6 +215,53 @@ public class StudyMaterialController {
         }
     }
 
+    // Render a single PDF page as a PNG instead of sending the whole file
+    @GetMapping("/preview/{materialId}/pages/{page}")
+    public ResponseEntity<?> previewPage(@PathVariable String materialId,
+                                         @PathVariable int page,
+                                         @RequestParam(value = "width", defaultValue = "640") int width) {
+        Optional<StudyMaterial> materialOpt = materialService.getMaterialById(materialId);
+        if (!materialOpt.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        StudyMaterial material = materialOpt.get();
+
+        // Check if user has access to this material
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        ResponseEntity<?> denied = checkCourseAccess(auth, material.getCourseId(),
+                "You don't have access to this material");
+        if (denied != null) {
+            return denied;
+        }
+
+        if (!previewService.isPreviewable(material)) {
+            return ResponseEntity.badRequest().body("Previews are only available for PDF files");
+        }
+
+        try {
+            Path image = previewService.getPage(material, page, width);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_PNG)
+                    // A material's bytes never change, so neither do its pages
+                    .header(HttpHeaders.CACHE_CONTROL, "private, max-age=604800, immutable")
+                    .body(new FileSystemResource(image));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (PdfPreviewService.PreviewBusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error rendering preview: " + e.getMessage());
+        }
+    }
+
+    // First-page thumbnail for material listings
+    @GetMapping("/preview/{materialId}/thumbnail")
+    public ResponseEntity<?> previewThumbnail(@PathVariable String materialId) {
+        return previewPage(materialId, 1, PdfPreviewService.THUMBNAIL_WIDTH);
+    }
+
     // Admin endpoint to upload a material
     @PostMapping(value="/admin/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> uploadMaterial(
@@ -213,6 +288,8 @@ public class StudyMaterialController {
         try {
             StudyMaterial material = materialService.uploadMaterial(
                     file, title, description, courseId, user.getEmail());
+            previewService.warmThumbnail(material);
+            materialIndexService.ingestAsync(material);
 
             return ResponseEntity.status(HttpStatus.CREATED).body(material);
         } catch (IOException e) {
@@ -221,6 +298,48 @@ public class StudyMaterialController {
         }
     }
 
+    // Admin endpoint to upload several materials for one course in a single request
+    @PostMapping(value="/admin/upload/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> uploadMaterials(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "titles", required = false) List<String> titles,
+            @RequestParam(value = "descriptions", required = false) List<String> descriptions,
+            @RequestParam("courseId") String courseId) {
+
+        // Validate current user is admin
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        User user = userRepository.findByEmail(auth.getName());
+
+        if (user == null || user.getRole() != Role.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Admin access required");
+        }
+
+        // Validate the course exists
+        Optional<Course> courseOpt = courseService.getCourseById(courseId);
+        if (!courseOpt.isPresent()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Course not found with ID: " + courseId);
+        }
+
+        if (files.isEmpty()) {
+            return ResponseEntity.badRequest().body("No files provided");
+        }
+
+        List<BatchUploadResult> results = materialService.uploadMaterials(
+                files, titles, descriptions, courseId, user.getEmail());
+        for (BatchUploadResult result : results) {
+            if (result.isSuccess()) {
+                previewService.warmThumbnail(result.getMaterial());
+                materialIndexService.ingestAsync(result.getMaterial());
+            }
+        }
+
+        // 207 when only some of the files made it
+        boolean allSucceeded = results.stream().allMatch(BatchUploadResult::isSuccess);
+        return ResponseEntity.status(allSucceeded ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS)
+                .body(results);
+    }
+
     // Admin endpoint to update material details
     @PutMapping("/admin/{id}")
     public ResponseEntity<?> updateMaterialDetails(
@@ -263,6 +382,7 @@ public class StudyMaterialController {
 
         try {
             materialService.deleteMaterial(id);
+            previewService.evict(id);
             return ResponseEntity.ok("Material deleted successfully");
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -286,88 +406,85 @@ public class StudyMaterialController {
     }
 
     @GetMapping("/direct-download/{filename}")
-    public void directDownload(@PathVariable String filename, HttpServletResponse response) {
+    public void directDownload(@PathVariable String filename,
+                               @RequestParam(value = "materialId", required = false) String materialId,
+                               @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+                               HttpServletResponse response) {
         System.out.println("Direct download request for file: " + filename);
 
-        // Create S3 client
-        AmazonS3 s3Client = AmazonS3ClientBuilder.standard()
-                .withCredentials(new AWSStaticCredentialsProvider(
-                        new BasicAWSCredentials(accessKey, secretKey)))
-                .withRegion(region)
-                .build();
-
         try {
-            // Check if file exists in S3
-            boolean fileExists = s3Client.doesObjectExist(bucketName, filename);
-
-            if (!fileExists) {
-                System.out.println("ERROR: File does not exist in S3 bucket: " + bucketName + ", key: " + filename);
+            // Check if the file exists and get its size and content type
+            Optional<BlobMetadata> blob = blobStorage.head(filename);
+            if (blob.isEmpty()) {
+                System.out.println("ERROR: File does not exist in storage, key: " + filename);
                 response.sendError(HttpServletResponse.SC_NOT_FOUND);
                 return;
             }
 
-            // Get object metadata to check file size and content type
-            ObjectMetadata metadata = s3Client.getObjectMetadata(bucketName, filename);
-            long fileSize = metadata.getContentLength();
-
-            // Check file size
-            if (fileSize == 0) {
-                System.out.println("WARNING: File exists but has zero length: " + filename);
-            } else {
-                System.out.println("File found with size: " + fileSize + " bytes");
-            }
+            long fileSize = blob.get().getSize();
 
-            // Get content type from file extension if not provided by S3
-            String contentType = metadata.getContentType();
+            // Get content type from file extension if not provided by storage
+            String contentType = blob.get().getContentType();
             if (contentType == null || contentType.equals("application/octet-stream")) {
                 String fileExtension = filename.substring(filename.lastIndexOf('.') + 1);
                 contentType = determineContentType(fileExtension);
             }
-            System.out.println("Using content type: " + contentType);
+
+            // Single byte range support, so PDF viewers can fetch only what they show
+            long start = 0;
+            long end = fileSize - 1;
+            if (range != null && range.startsWith("bytes=") && !range.contains(",")) {
+                try {
+                    String[] bounds = range.substring(6).split("-", 2);
+                    if (bounds[0].isEmpty()) {
+                        start = Math.max(0, fileSize - Long.parseLong(bounds[1]));
+                    } else {
+                        start = Long.parseLong(bounds[0]);
+                        if (!bounds[1].isEmpty()) {
+                            end = Math.min(end, Long.parseLong(bounds[1]));
+                        }
+                    }
+                } catch (NumberFormatException e) {
+                    start = 0;
+                    end = fileSize - 1;
+                }
+
+                if (start > end || start >= fileSize) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileSize);
+            }
 
             // Set response headers
             response.setContentType(contentType);
-            response.setContentLengthLong(fileSize);
+            response.setContentLengthLong(end - start + 1);
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
             response.setHeader("Content-Disposition", "attachment; filename=\"" +
                     (filename.contains("-") ? filename.substring(filename.indexOf("-") + 1) : filename) + "\"");
             response.setHeader("X-Frame-Options", "ALLOWALL");
 
-            // Get the S3 object and stream it to the response
-            S3Object s3Object = s3Client.getObject(bucketName, filename);
-            try (InputStream in = s3Object.getObjectContent();
-                 OutputStream out = response.getOutputStream()) {
-
-                byte[] buffer = new byte[4096];
-                int bytesRead;
-                long totalBytesRead = 0;
-
-                while ((bytesRead = in.read(buffer)) != -1) {
-                    try {
-                        out.write(buffer, 0, bytesRead);
-                        totalBytesRead += bytesRead;
-                        out.flush(); // Flush after each write for larger files
-                    } catch (IOException e) {
-                        // Client disconnected - handle gracefully
-                        System.out.println("Client disconnected during download: " + e.getMessage());
-                        return; // Exit the method early
-                    }
-                }
-
-                System.out.println("Sent " + totalBytesRead + " bytes to client");
-            } finally {
-                // Important: Always close S3Object to release resources
-                s3Object.close();
+            // Count full downloads against the material. The id must name a
+            // material stored under this key; links carrying only the key are
+            // counted when no other material shares it.
+            if (start == 0) {
+                Optional<StudyMaterial> downloaded = materialId != null
+                        ? materialService.getMaterialById(materialId)
+                                .filter(material -> !material.isDeleted() && filename.equals(materialService.getObjectKey(material)))
+                        : materialService.getMaterialByObjectKey(filename);
+                downloaded.ifPresent(usageService::recordDownload);
             }
-        } catch (AmazonS3Exception e) {
-            System.err.println("S3 Error: " + e.getMessage());
+
             try {
-                if (!response.isCommitted()) {
-                    response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-                }
-            } catch (IOException ignored) {
-                // If we can't send the error, there's nothing we can do
+                long sent = blobStorage.transferTo(filename, start, end - start + 1, response.getOutputStream());
+                System.out.println("Sent " + sent + " bytes to client");
+            } catch (IOException e) {
+                // Client disconnected - handle gracefully
+                System.out.println("Client disconnected during download: " + e.getMessage());
             }
-        } catch (IOException e) {
+        } catch (IOException | IllegalArgumentException e) {
             System.err.println("Error processing download: " + e.getMessage());
             try {
                 if (!response.isCommitted()) {
@@ -381,7 +498,7 @@ public class StudyMaterialController {
 
     @GetMapping("/view/{id}")
     public ResponseEntity<?> viewMaterial(@PathVariable String id) {
-        Optional<StudyMaterial> materialOpt = studyMaterialRepository.findById(id);
+        Optional<StudyMaterial> materialOpt = materialService.getMaterialById(id);
 
         if (materialOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
@@ -390,17 +507,17 @@ public class StudyMaterialController {
         StudyMaterial material = materialOpt.get();
         String fileUrl = material.getFileUrl();
 
-        // Ensure the URL is properly formatted for S3
-        if (!fileUrl.startsWith("https://")) {
+        // Ensure the URL is complete
+        if (!fileUrl.startsWith("https://") && !fileUrl.startsWith("/")) {
             // If for some reason the URL isn't complete, construct it
             // This is just a safeguard in case your storage logic changes
-            fileUrl = "https://" + bucketName + ".s3." + region + ".amazonaws.com/" + fileUrl;
+            fileUrl = blobStorage.publicUrl(fileUrl);
         }
 
         // Validate URL
         try {
             URI uri = new URI(fileUrl);
-            if (!uri.isAbsolute()) {
+            if (!uri.isAbsolute() && !fileUrl.startsWith("/")) {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                         .body("Invalid file URL: not absolute");
             }
@@ -427,13 +544,27 @@ public class StudyMaterialController {
     }
     */
 
-        // Redirect to the S3 URL
+        usageService.recordView(material);
+
+        // Redirect to the stored file
         return ResponseEntity.status(HttpStatus.FOUND)
                 .location(URI.create(fileUrl))
                 .build();
     }
 
 
+    // Returns the error response when the caller may not access the course, null otherwise
+    private ResponseEntity<?> checkCourseAccess(Authentication auth, String courseId, String forbiddenMessage) {
+        switch (courseAccessService.checkAccess(auth, courseId)) {
+            case NOT_FOUND:
+                return ResponseEntity.notFound().build();
+            case FORBIDDEN:
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(forbiddenMessage);
+            default:
+                return null;
+        }
+    }
+
     // Helper method to determine content type
     private String determineContentType(String fileExtension) {
         if (fileExtension == null) {
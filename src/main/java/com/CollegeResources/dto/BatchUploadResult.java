@@ -0,0 +1,63 @@
+package com.CollegeResources.dto;
+
+import com.CollegeResources.model.StudyMaterial;
+
+public class BatchUploadResult {
+    private String fileName;
+    private boolean success;
+    private StudyMaterial material;
+    private String error;
+
+    public BatchUploadResult(String fileName, boolean success, StudyMaterial material, String error) {
+        this.fileName = fileName;
+        this.success = success;
+        this.material = material;
+        this.error = error;
+    }
+
+    public static BatchUploadResult success(String fileName, StudyMaterial material) {
+        return new BatchUploadResult(fileName, true, material, null);
+    }
+
+    public static BatchUploadResult failure(String fileName, String error) {
+        return new BatchUploadResult(fileName, false, null, error);
+    }
+
+    public void markFailed(String error) {
+        this.success = false;
+        this.material = null;
+        this.error = error;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public StudyMaterial getMaterial() {
+        return material;
+    }
+
+    public void setMaterial(StudyMaterial material) {
+        this.material = material;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,64 @@
+package com.CollegeResources.dto;
+
+/**
+ * Model usage and estimated cost of MCQ generation for one course since startup
+ */
+public class CourseCost {
+
+    private String courseId;
+    private long calls;
+    private long promptTokens;
+    private long completionTokens;
+    private double estimatedCost;
+
+    public CourseCost() {
+    }
+
+    public CourseCost(String courseId, long calls, long promptTokens, long completionTokens, double estimatedCost) {
+        this.courseId = courseId;
+        this.calls = calls;
+        this.promptTokens = promptTokens;
+        this.completionTokens = completionTokens;
+        this.estimatedCost = estimatedCost;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(String courseId) {
+        this.courseId = courseId;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public void setCalls(long calls) {
+        this.calls = calls;
+    }
+
+    public long getPromptTokens() {
+        return promptTokens;
+    }
+
+    public void setPromptTokens(long promptTokens) {
+        this.promptTokens = promptTokens;
+    }
+
+    public long getCompletionTokens() {
+        return completionTokens;
+    }
+
+    public void setCompletionTokens(long completionTokens) {
+        this.completionTokens = completionTokens;
+    }
+
+    public double getEstimatedCost() {
+        return estimatedCost;
+    }
+
+    public void setEstimatedCost(double estimatedCost) {
+        this.estimatedCost = estimatedCost;
+    }
+}
@@ -0,0 +1,62 @@
+package com.CollegeResources.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A question due for review, with where it stands in the schedule
+ */
+public class DueReview {
+    private String courseId;
+    private ServedQuestion question;
+    private LocalDateTime dueAt;
+    private int repetitions;
+    private int lapses;
+
+    public DueReview(String courseId, ServedQuestion question, LocalDateTime dueAt, int repetitions, int lapses) {
+        this.courseId = courseId;
+        this.question = question;
+        this.dueAt = dueAt;
+        this.repetitions = repetitions;
+        this.lapses = lapses;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(String courseId) {
+        this.courseId = courseId;
+    }
+
+    public ServedQuestion getQuestion() {
+        return question;
+    }
+
+    public void setQuestion(ServedQuestion question) {
+        this.question = question;
+    }
+
+    public LocalDateTime getDueAt() {
+        return dueAt;
+    }
+
+    public void setDueAt(LocalDateTime dueAt) {
+        this.dueAt = dueAt;
+    }
+
+    public int getRepetitions() {
+        return repetitions;
+    }
+
+    public void setRepetitions(int repetitions) {
+        this.repetitions = repetitions;
+    }
+
+    public int getLapses() {
+        return lapses;
+    }
+
+    public void setLapses(int lapses) {
+        this.lapses = lapses;
+    }
+}
@@ -0,0 +1,41 @@
+package com.CollegeResources.dto;
+
+/**
+ * A student's place on a leaderboard. Points are the number of questions
+ * of the course the student answered correctly the first time they saw them.
+ */
+public class LeaderboardEntry {
+    private int rank;
+    private String name;
+    private int points;
+
+    public LeaderboardEntry(int rank, String name, int points) {
+        this.rank = rank;
+        this.name = name;
+        this.points = points;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public void setRank(int rank) {
+        this.rank = rank;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public void setPoints(int points) {
+        this.points = points;
+    }
+}
@@ -0,0 +1,86 @@
+package com.CollegeResources.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * State of an asynchronous MCQ generation job as returned to its owner
+ */
+public class McqJobStatus {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private String jobId;
+    private State state;
+    private List<ServedQuestion> questions;
+    private String error;
+    private LocalDateTime submittedAt;
+    private LocalDateTime finishedAt;
+
+    public McqJobStatus() {
+    }
+
+    public McqJobStatus(String jobId, State state, List<ServedQuestion> questions, String error,
+                        LocalDateTime submittedAt, LocalDateTime finishedAt) {
+        this.jobId = jobId;
+        this.state = state;
+        this.questions = questions;
+        this.error = error;
+        this.submittedAt = submittedAt;
+        this.finishedAt = finishedAt;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public List<ServedQuestion> getQuestions() {
+        return questions;
+    }
+
+    public void setQuestions(List<ServedQuestion> questions) {
+        this.questions = questions;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(LocalDateTime submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -0,0 +1,30 @@
+package com.CollegeResources.dto;
+
+import com.CollegeResources.model.QuizAnswer;
+
+import java.util.List;
+
+/**
+ * Answers to questions served for a course; only questionId and
+ * selectedOption of each answer are read
+ */
+public class QuizSubmission {
+    private String courseId;
+    private List<QuizAnswer> answers;
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(String courseId) {
+        this.courseId = courseId;
+    }
+
+    public List<QuizAnswer> getAnswers() {
+        return answers;
+    }
+
+    public void setAnswers(List<QuizAnswer> answers) {
+        this.answers = answers;
+    }
+}
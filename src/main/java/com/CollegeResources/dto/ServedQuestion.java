@@ -0,0 +1,62 @@
+package com.CollegeResources.dto;
+
+import com.CollegeResources.model.McqOption;
+import com.CollegeResources.model.McqQuestion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A question as shown to a student: the option texts only. Which option is
+ * correct, and the explanation, are revealed by grading an attempt.
+ */
+public class ServedQuestion {
+    private String id; // question bank id
+    private String question;
+    private List<String> options;
+
+    public ServedQuestion() {
+    }
+
+    public static ServedQuestion of(McqQuestion question) {
+        ServedQuestion served = new ServedQuestion();
+        served.id = question.getId();
+        served.question = question.getQuestion();
+        served.options = new ArrayList<>();
+        if (question.getOptions() != null) {
+            for (McqOption option : question.getOptions()) {
+                served.options.add(option.getOption());
+            }
+        }
+        return served;
+    }
+
+    public static List<ServedQuestion> of(List<McqQuestion> questions) {
+        return questions.stream().map(ServedQuestion::of).collect(Collectors.toList());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getQuestion() {
+        return question;
+    }
+
+    public void setQuestion(String question) {
+        this.question = question;
+    }
+
+    public List<String> getOptions() {
+        return options;
+    }
+
+    public void setOptions(List<String> options) {
+        this.options = options;
+    }
+}
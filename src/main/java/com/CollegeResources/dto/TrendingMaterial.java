@@ -0,0 +1,57 @@
+package com.CollegeResources.dto;
+
+public class TrendingMaterial {
+    private String materialId;
+    private String title;
+    private String fileName;
+    private String courseId;
+    private double score;
+
+    public TrendingMaterial(String materialId, String title, String fileName, String courseId, double score) {
+        this.materialId = materialId;
+        this.title = title;
+        this.fileName = fileName;
+        this.courseId = courseId;
+        this.score = score;
+    }
+
+    public String getMaterialId() {
+        return materialId;
+    }
+
+    public void setMaterialId(String materialId) {
+        this.materialId = materialId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(String courseId) {
+        this.courseId = courseId;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
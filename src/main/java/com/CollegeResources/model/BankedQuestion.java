@@ -0,0 +1,73 @@
+package com.CollegeResources.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A generated MCQ kept for reuse. Topics are the normalized topics of the
+ * request it was generated for.
+ */
+@Document(collection = "questionBank")
+public class BankedQuestion {
+
+    @Id
+    private String id;
+
+    private String courseId;
+    private List<String> topics;
+    private McqQuestion question;
+    private LocalDateTime createdAt;
+
+    public BankedQuestion() {
+    }
+
+    public BankedQuestion(String courseId, List<String> topics, McqQuestion question) {
+        this.courseId = courseId;
+        this.topics = topics;
+        this.question = question;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(String courseId) {
+        this.courseId = courseId;
+    }
+
+    public List<String> getTopics() {
+        return topics;
+    }
+
+    public void setTopics(List<String> topics) {
+        this.topics = topics;
+    }
+
+    public McqQuestion getQuestion() {
+        return question;
+    }
+
+    public void setQuestion(McqQuestion question) {
+        this.question = question;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
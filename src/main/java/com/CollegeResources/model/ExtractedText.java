@@ -0,0 +1,63 @@
+package com.CollegeResources.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Text extracted from a material's file, so PDFs are parsed once rather than
+ * on every MCQ request. Valid only while checksum matches the material.
+ */
+@Document(collection = "extractedTexts")
+public class ExtractedText {
+
+    @Id
+    private String id; // material id
+
+    private String checksum;
+    private String text;
+    private LocalDateTime extractedAt;
+
+    public ExtractedText() {
+    }
+
+    public ExtractedText(String id, String checksum, String text) {
+        this.id = id;
+        this.checksum = checksum;
+        this.text = text;
+        this.extractedAt = LocalDateTime.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public LocalDateTime getExtractedAt() {
+        return extractedAt;
+    }
+
+    public void setExtractedAt(LocalDateTime extractedAt) {
+        this.extractedAt = extractedAt;
+    }
+}
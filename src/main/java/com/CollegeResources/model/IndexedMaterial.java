@@ -0,0 +1,73 @@
+package com.CollegeResources.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records which content of a material is in the chunk index and how many
+ * chunks it was split into, so stale chunks can be removed by id.
+ */
+@Document(collection = "indexedMaterials")
+public class IndexedMaterial {
+
+    @Id
+    private String id; // material id
+
+    private String courseId;
+    private String checksum;
+    private int chunkCount;
+    private LocalDateTime indexedAt;
+
+    public IndexedMaterial() {
+    }
+
+    public IndexedMaterial(String id, String courseId, String checksum, int chunkCount) {
+        this.id = id;
+        this.courseId = courseId;
+        this.checksum = checksum;
+        this.chunkCount = chunkCount;
+        this.indexedAt = LocalDateTime.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(String courseId) {
+        this.courseId = courseId;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public void setChunkCount(int chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
+    public LocalDateTime getIndexedAt() {
+        return indexedAt;
+    }
+
+    public void setIndexedAt(LocalDateTime indexedAt) {
+        this.indexedAt = indexedAt;
+    }
+}
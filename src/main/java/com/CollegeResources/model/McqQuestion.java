@@ -3,11 +3,20 @@ package com.CollegeResources.model;
 import java.util.List;
 
 public class McqQuestion {
+    private String id; // question bank id
     private String question;
     private List<McqOption> options;
     private String explanation;
 
     // Getters and setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
     public String getQuestion() {
         return question;
     }
@@ -1,15 +1,17 @@
 package com.CollegeResources.model;
 
+import com.CollegeResources.dto.ServedQuestion;
+
 import java.util.List;
 
 public class McqResponse {
-    private List<McqQuestion> questions;
+    private List<ServedQuestion> questions;
 
-    public List<McqQuestion> getQuestions() {
+    public List<ServedQuestion> getQuestions() {
         return questions;
     }
 
-    public void setQuestions(List<McqQuestion> questions) {
+    public void setQuestions(List<ServedQuestion> questions) {
         this.questions = questions;
     }
 }
\ No newline at end of file
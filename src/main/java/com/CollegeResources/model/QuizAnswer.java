@@ -0,0 +1,63 @@
+package com.CollegeResources.model;
+
+import org.springframework.data.annotation.Transient;
+
+/**
+ * One answer in a quiz attempt. selectedOption is the index of the chosen
+ * option, or null if the question was skipped; correct, correctOption and
+ * the explanation are filled in by grading. The explanation is returned
+ * with the graded attempt but not stored.
+ */
+public class QuizAnswer {
+    private String questionId; // question bank id
+    private Integer selectedOption;
+    private boolean correct;
+    private Integer correctOption;
+
+    @Transient
+    private String explanation;
+
+    public QuizAnswer() {
+    }
+
+    // Getters and setters
+    public String getQuestionId() {
+        return questionId;
+    }
+
+    public void setQuestionId(String questionId) {
+        this.questionId = questionId;
+    }
+
+    public Integer getSelectedOption() {
+        return selectedOption;
+    }
+
+    public void setSelectedOption(Integer selectedOption) {
+        this.selectedOption = selectedOption;
+    }
+
+    public boolean isCorrect() {
+        return correct;
+    }
+
+    public void setCorrect(boolean correct) {
+        this.correct = correct;
+    }
+
+    public Integer getCorrectOption() {
+        return correctOption;
+    }
+
+    public void setCorrectOption(Integer correctOption) {
+        this.correctOption = correctOption;
+    }
+
+    public String getExplanation() {
+        return explanation;
+    }
+
+    public void setExplanation(String explanation) {
+        this.explanation = explanation;
+    }
+}
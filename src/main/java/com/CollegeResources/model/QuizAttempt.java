@@ -0,0 +1,103 @@
+package com.CollegeResources.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A graded submission of answers to banked questions of one course. The
+ * user's name and batch are copied in when it is graded, so leaderboards
+ * can be rebuilt from attempts alone.
+ */
+@Document(collection = "quizAttempts")
+public class QuizAttempt {
+
+    @Id
+    private String id;
+
+    private String userEmail;
+    private String userName;
+    private String batchYear;
+    private String courseId;
+    private List<QuizAnswer> answers;
+    private int score;
+    private int total;
+    private LocalDateTime submittedAt;
+
+    public QuizAttempt() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    public void setUserEmail(String userEmail) {
+        this.userEmail = userEmail;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUserName(String userName) {
+        this.userName = userName;
+    }
+
+    public String getBatchYear() {
+        return batchYear;
+    }
+
+    public void setBatchYear(String batchYear) {
+        this.batchYear = batchYear;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(String courseId) {
+        this.courseId = courseId;
+    }
+
+    public List<QuizAnswer> getAnswers() {
+        return answers;
+    }
+
+    public void setAnswers(List<QuizAnswer> answers) {
+        this.answers = answers;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(LocalDateTime submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+}
@@ -0,0 +1,131 @@
+package com.CollegeResources.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A banked question in a student's review queue, scheduled SM-2 style:
+ * each successful review multiplies the interval by the easiness factor,
+ * a miss starts the question over at one day.
+ */
+@Document(collection = "reviewItems")
+public class ReviewItem {
+
+    @Id
+    private String id; // userEmail|questionId
+
+    private String userEmail;
+    private String questionId;
+    private String courseId;
+    private double easiness = 2.5;
+    private int repetitions;
+    private int intervalDays;
+    private int lapses;
+    private LocalDateTime dueAt;
+    private LocalDateTime lastReviewedAt;
+
+    public ReviewItem() {
+    }
+
+    public ReviewItem(String userEmail, String questionId, String courseId) {
+        this.id = userEmail + "|" + questionId;
+        this.userEmail = userEmail;
+        this.questionId = questionId;
+        this.courseId = courseId;
+    }
+
+    public ReviewItem(ReviewItem other) {
+        this.id = other.id;
+        this.userEmail = other.userEmail;
+        this.questionId = other.questionId;
+        this.courseId = other.courseId;
+        this.easiness = other.easiness;
+        this.repetitions = other.repetitions;
+        this.intervalDays = other.intervalDays;
+        this.lapses = other.lapses;
+        this.dueAt = other.dueAt;
+        this.lastReviewedAt = other.lastReviewedAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    public void setUserEmail(String userEmail) {
+        this.userEmail = userEmail;
+    }
+
+    public String getQuestionId() {
+        return questionId;
+    }
+
+    public void setQuestionId(String questionId) {
+        this.questionId = questionId;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(String courseId) {
+        this.courseId = courseId;
+    }
+
+    public double getEasiness() {
+        return easiness;
+    }
+
+    public void setEasiness(double easiness) {
+        this.easiness = easiness;
+    }
+
+    public int getRepetitions() {
+        return repetitions;
+    }
+
+    public void setRepetitions(int repetitions) {
+        this.repetitions = repetitions;
+    }
+
+    public int getIntervalDays() {
+        return intervalDays;
+    }
+
+    public void setIntervalDays(int intervalDays) {
+        this.intervalDays = intervalDays;
+    }
+
+    public int getLapses() {
+        return lapses;
+    }
+
+    public void setLapses(int lapses) {
+        this.lapses = lapses;
+    }
+
+    public LocalDateTime getDueAt() {
+        return dueAt;
+    }
+
+    public void setDueAt(LocalDateTime dueAt) {
+        this.dueAt = dueAt;
+    }
+
+    public LocalDateTime getLastReviewedAt() {
+        return lastReviewedAt;
+    }
+
+    public void setLastReviewedAt(LocalDateTime lastReviewedAt) {
+        this.lastReviewedAt = lastReviewedAt;
+    }
+}
@@ -0,0 +1,73 @@
+package com.CollegeResources.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records that a banked question was served to a user. The id makes the
+ * pair unique, so inserting it is how a request claims a question.
+ */
+@Document(collection = "servedQuestions")
+public class ServedRecord {
+
+    @Id
+    private String id; // userEmail|questionId
+
+    private String userEmail;
+    private String questionId;
+    private String courseId;
+    private LocalDateTime servedAt;
+
+    public ServedRecord() {
+    }
+
+    public ServedRecord(String userEmail, String questionId, String courseId) {
+        this.id = userEmail + "|" + questionId;
+        this.userEmail = userEmail;
+        this.questionId = questionId;
+        this.courseId = courseId;
+        this.servedAt = LocalDateTime.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    public void setUserEmail(String userEmail) {
+        this.userEmail = userEmail;
+    }
+
+    public String getQuestionId() {
+        return questionId;
+    }
+
+    public void setQuestionId(String questionId) {
+        this.questionId = questionId;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(String courseId) {
+        this.courseId = courseId;
+    }
+
+    public LocalDateTime getServedAt() {
+        return servedAt;
+    }
+
+    public void setServedAt(LocalDateTime servedAt) {
+        this.servedAt = servedAt;
+    }
+}
@@ -24,6 +24,17 @@ public class StudyMaterial {
     @Field("fileUrl")
     private String fileUrl;
 
+    private String objectKey;
+    private String contentHash;
+
+    // Soft-delete tombstone; the reaper removes the document and its object later
+    private boolean deleted;
+    private LocalDateTime deletedAt;
+
+    // Maintained by MaterialUsageService flushes
+    private long downloadCount;
+    private long viewCount;
+
     public StudyMaterial() {
     }
 
@@ -120,4 +131,52 @@ public class StudyMaterial {
     public void setUploadDate(LocalDateTime uploadDate) {
         this.uploadDate = uploadDate;
     }
+
+    public String getObjectKey() {
+        return objectKey;
+    }
+
+    public void setObjectKey(String objectKey) {
+        this.objectKey = objectKey;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
+    public long getDownloadCount() {
+        return downloadCount;
+    }
+
+    public void setDownloadCount(long downloadCount) {
+        this.downloadCount = downloadCount;
+    }
+
+    public long getViewCount() {
+        return viewCount;
+    }
+
+    public void setViewCount(long viewCount) {
+        this.viewCount = viewCount;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.CollegeResources.repository;
+
+import com.CollegeResources.model.ExtractedText;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ExtractedTextRepository extends MongoRepository<ExtractedText, String> {
+
+}
@@ -0,0 +1,10 @@
+package com.CollegeResources.repository;
+
+import com.CollegeResources.model.IndexedMaterial;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IndexedMaterialRepository extends MongoRepository<IndexedMaterial, String> {
+
+}
@@ -1,6 +1,7 @@
 package com.CollegeResources.repository;
 
 import com.CollegeResources.model.StudyMaterial;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
@@ -13,4 +14,18 @@ public interface StudyMaterialRepository extends MongoRepository<StudyMaterial,
 
     List<StudyMaterial> findByTitleContainingIgnoreCase(String searchTerm);
 
+    // "Not true" rather than "false" so documents written before the flag existed still match
+    List<StudyMaterial> findByCourseIdAndDeletedNot(String courseId, boolean deleted);
+
+    List<StudyMaterial> findByDeletedNot(boolean deleted);
+
+    List<StudyMaterial> findByTitleContainingIgnoreCaseAndDeletedNot(String searchTerm, boolean deleted);
+
+    List<StudyMaterial> findByDeleted(boolean deleted, Pageable pageable);
+
+    List<StudyMaterial> findByCourseIdAndDeletedNotOrderByDownloadCountDesc(String courseId, boolean deleted,
+                                                                           Pageable pageable);
+
+    List<StudyMaterial> findByObjectKeyAndDeletedNot(String objectKey, boolean deleted, Pageable pageable);
+
 }
\ No newline at end of file
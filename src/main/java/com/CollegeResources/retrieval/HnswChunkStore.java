@@ -0,0 +1,168 @@
+package com.CollegeResources.retrieval;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Chunk store backed by the in-process {@link HnswIndex}, selected with
+ * mcq.retrieval.backend=hnsw. Vectors live in the index directory and chunk
+ * text in the materialChunks collection; the course id is the index label.
+ */
+@Component
+@ConditionalOnProperty(name = "mcq.retrieval.backend", havingValue = "hnsw")
+public class HnswChunkStore implements MaterialChunkStore {
+
+    private static final String COLLECTION = "materialChunks";
+
+    private final EmbeddingModel embeddingModel;
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${mcq.retrieval.hnsw.dir:hnsw-index}")
+    private String indexDir;
+
+    @Value("${mcq.retrieval.hnsw.m:16}")
+    private int m;
+
+    @Value("${mcq.retrieval.hnsw.ef-construction:100}")
+    private int efConstruction;
+
+    @Value("${mcq.retrieval.hnsw.ef-search:64}")
+    private int efSearch;
+
+    @Value("${mcq.retrieval.hnsw.compact-ratio:0.3}")
+    private double compactRatio;
+
+    private HnswIndex index;
+
+    public HnswChunkStore(EmbeddingModel embeddingModel, MongoTemplate mongoTemplate) {
+        this.embeddingModel = embeddingModel;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        index = HnswIndex.open(Paths.get(indexDir), m, efConstruction);
+        mongoTemplate.indexOps(COLLECTION).ensureIndex(new Index().on("materialId", Sort.Direction.ASC));
+        System.out.println("Opened HNSW index with " + index.size() + " chunks");
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        index.close();
+    }
+
+    /**
+     * Rebuilds the index once deleted chunks make up more than compact-ratio
+     * of it, since re-ingested materials leave their old chunks behind
+     */
+    @Scheduled(fixedDelayString = "${mcq.retrieval.hnsw.compact-interval-ms:3600000}")
+    public void compactIfNeeded() {
+        int deleted = index.deletedCount();
+        if (deleted == 0 || deleted < (index.size() + deleted) * compactRatio) {
+            return;
+        }
+        try {
+            if (index.compact()) {
+                System.out.println("Compacted HNSW index, dropped " + deleted + " deleted chunks");
+            } else {
+                System.out.println("HNSW index changed during compaction, will retry");
+            }
+        } catch (IOException e) {
+            System.err.println("HNSW index compaction failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void add(List<MaterialChunk> chunks) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        List<String> texts = new ArrayList<>();
+        for (MaterialChunk chunk : chunks) {
+            texts.add(chunk.getText());
+        }
+        List<float[]> embeddings = embeddingModel.embed(texts);
+
+        // Text first, so a chunk found by search always has its text
+        for (MaterialChunk chunk : chunks) {
+            mongoTemplate.save(chunk, COLLECTION);
+        }
+        try {
+            for (int i = 0; i < chunks.size(); i++) {
+                index.add(chunks.get(i).getId(), chunks.get(i).getCourseId(), embeddings.get(i));
+            }
+            index.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write HNSW index: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void delete(List<String> chunkIds) {
+        if (chunkIds.isEmpty()) {
+            return;
+        }
+        for (String id : chunkIds) {
+            index.delete(id);
+        }
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(chunkIds)), COLLECTION);
+        try {
+            index.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write HNSW index: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<MaterialChunk> search(String courseId, Collection<String> materialIds, String query, int topK) {
+        // Only chunks of the requested materials may fill the k results
+        Query chunksOf = Query.query(Criteria.where("materialId").in(materialIds));
+        chunksOf.fields().include("_id");
+        Set<String> allowed = new HashSet<>();
+        for (Document chunk : mongoTemplate.find(chunksOf, Document.class, COLLECTION)) {
+            allowed.add(chunk.get("_id").toString());
+        }
+        if (allowed.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<HnswIndex.Result> results = index.search(embeddingModel.embed(query), topK, efSearch, courseId, allowed);
+        if (results.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> ids = new ArrayList<>();
+        for (HnswIndex.Result result : results) {
+            ids.add(result.getId());
+        }
+        Map<String, MaterialChunk> byId = new HashMap<>();
+        for (MaterialChunk chunk : mongoTemplate.find(Query.query(Criteria.where("_id").in(ids)), MaterialChunk.class, COLLECTION)) {
+            byId.put(chunk.getId(), chunk);
+        }
+
+        List<MaterialChunk> chunks = new ArrayList<>();
+        for (HnswIndex.Result result : results) {
+            MaterialChunk chunk = byId.get(result.getId());
+            if (chunk != null) {
+                chunk.setScore(result.getScore());
+                chunks.add(chunk);
+            }
+        }
+        return chunks;
+    }
+}
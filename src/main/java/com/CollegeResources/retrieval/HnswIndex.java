@@ -0,0 +1,976 @@
+package com.CollegeResources.retrieval;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hierarchical navigable small world graph for approximate nearest
+ * neighbour search by cosine similarity.
+ *
+ * Vectors and the layer-0 links, which make up almost all of the index, live
+ * in memory-mapped files, so opening an index only maps them and reads the
+ * small graph metadata. Upper layers, labels and tombstones are kept on the
+ * heap in primitive arrays and written to graph.meta on flush.
+ *
+ * Mapped pages can reach the disk at any time, so nodes recorded in
+ * graph.meta are never changed in place between flushes: new links to them
+ * are kept on the heap, and flush writes them to a redo journal before the
+ * metadata and only then into the mapped file. A crash therefore leaves the
+ * index as of the last flush.
+ *
+ * Any number of searches run concurrently; inserts and deletes take the
+ * write lock. Deleted nodes stay in the graph for traversal but are never
+ * returned until {@link #compact()} rebuilds the index from the live nodes
+ * into a new generation directory.
+ */
+public class HnswIndex implements Closeable {
+
+    private static final int MAGIC = 0x484E5357;
+    private static final int HEADER_BYTES = 16;
+    private static final int MAX_LEVEL = 16;
+
+    private static final String VECTORS_FILE = "vectors.bin";
+    private static final String LINKS_FILE = "links0.bin";
+    private static final String META_FILE = "graph.meta";
+    private static final String JOURNAL_FILE = "links0.journal";
+    private static final String CURRENT_FILE = "CURRENT";
+
+    private final Path directory;
+    private Path dataDirectory;
+    private final int efConstruction;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int m;
+    private int m0;
+    private double levelMultiplier;
+
+    private int dimension;
+    private int size;
+    private int capacity;
+    private int liveCount;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    // Nodes below this are in graph.meta; their layer-0 links change only on flush
+    private int persistedSize;
+    private int modCount;
+
+    // Per node, indexed by node number
+    private int[] levels = new int[0];
+    private int[][][] upperLinks = new int[0][][]; // [node][level - 1] = {count, links...}
+    private int[] labels = new int[0];
+    private String[] ids = new String[0];
+    private long[] deleted = new long[0];
+    private int[][] pendingLinks0 = new int[0][]; // [node] = {count, links...} until the next flush
+
+    private final Map<String, Integer> nodeById = new HashMap<>();
+    private final List<String> labelNames = new ArrayList<>();
+    private final Map<String, Integer> labelOrdinals = new HashMap<>();
+
+    private FileChannel vectorChannel;
+    private FileChannel linkChannel;
+    private MappedByteBuffer vectors;
+    private MappedByteBuffer links;
+
+    private HnswIndex(Path directory, Path dataDirectory, int m, int efConstruction) {
+        this.directory = directory;
+        this.dataDirectory = dataDirectory;
+        this.efConstruction = efConstruction;
+        setM(m);
+    }
+
+    /**
+     * Opens the index in the directory, creating it if it does not exist
+     */
+    public static HnswIndex open(Path directory, int m, int efConstruction) throws IOException {
+        Files.createDirectories(directory);
+        // Compacted indexes live in a generation directory named by CURRENT
+        Path current = directory.resolve(CURRENT_FILE);
+        Path dataDirectory = Files.exists(current)
+                ? directory.resolve(Files.readString(current).trim())
+                : directory;
+        return openData(directory, dataDirectory, m, efConstruction);
+    }
+
+    private static HnswIndex openData(Path directory, Path dataDirectory, int m, int efConstruction) throws IOException {
+        Files.createDirectories(dataDirectory);
+        HnswIndex index = new HnswIndex(directory, dataDirectory, m, efConstruction);
+        if (Files.exists(dataDirectory.resolve(META_FILE))) {
+            index.readMeta();
+        }
+        index.vectorChannel = FileChannel.open(dataDirectory.resolve(VECTORS_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index.linkChannel = FileChannel.open(dataDirectory.resolve(LINKS_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (index.dimension > 0) {
+            index.mapExisting();
+            index.recoverJournal();
+        } else {
+            Files.deleteIfExists(dataDirectory.resolve(JOURNAL_FILE));
+        }
+        index.persistedSize = index.size;
+        return index;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return size - liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Inserts the vector under the id, replacing any vector already stored for it
+     */
+    public void add(String id, String label, float[] vector) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (dimension == 0) {
+                dimension = vector.length;
+            } else if (vector.length != dimension) {
+                throw new IllegalArgumentException("Expected " + dimension + " dimensions but got " + vector.length);
+            }
+
+            Integer existing = nodeById.get(id);
+            if (existing != null) {
+                markDeleted(existing);
+            }
+            modCount++;
+
+            ensureCapacity(size + 1);
+            int node = size;
+            float[] query = normalize(vector);
+            int base = vectorOffset(node);
+            for (int i = 0; i < dimension; i++) {
+                vectors.putFloat(base + i * 4, query[i]);
+            }
+
+            int level = randomLevel();
+            levels[node] = level;
+            upperLinks[node] = level == 0 ? null : new int[level][m + 1];
+            links.putInt(linkOffset(node), 0);
+            labels[node] = labelOrdinal(label);
+            ids[node] = id;
+            nodeById.put(id, node);
+            size++;
+            liveCount++;
+
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return;
+            }
+
+            int ep = entryPoint;
+            float epDistance = distance(query, ep);
+            for (int lc = maxLevel; lc > level; lc--) {
+                int[] closest = greedy(query, ep, epDistance, lc);
+                ep = closest[0];
+                epDistance = Float.intBitsToFloat(closest[1]);
+            }
+
+            for (int lc = Math.min(level, maxLevel); lc >= 0; lc--) {
+                NodeHeap found = searchLayer(query, ep, epDistance, efConstruction, lc, -1, null, false);
+                int count = found.size();
+                int[] candidates = new int[count];
+                float[] distances = new float[count];
+                for (int i = count - 1; i >= 0; i--) {
+                    distances[i] = found.peekDistance();
+                    candidates[i] = found.pop();
+                }
+
+                int[] selected = selectNeighbors(candidates, distances, count, m);
+                setNeighbors(node, lc, selected, selected.length);
+                int maxConnections = lc == 0 ? m0 : m;
+                for (int neighbor : selected) {
+                    link(neighbor, node, lc, maxConnections);
+                }
+
+                ep = candidates[0];
+                epDistance = distances[0];
+            }
+
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = node;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tombstones the vector stored under the id, if any
+     */
+    public boolean delete(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodeById.get(id);
+            if (node == null) {
+                return false;
+            }
+            markDeleted(node);
+            modCount++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to k live vectors most similar to the query, best first.
+     * With a label, only vectors added under that label are returned.
+     */
+    public List<Result> search(float[] vector, int k, int ef, String label) {
+        return search(vector, k, ef, label, null);
+    }
+
+    /**
+     * Like search, but when allowedIds is given only vectors with one of
+     * those ids are returned. The graph is still traversed through the
+     * others, so a small allowed set costs more visits, not recall.
+     */
+    public List<Result> search(float[] vector, int k, int ef, String label, Set<String> allowedIds) {
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0 || vector.length != dimension) {
+                return Collections.emptyList();
+            }
+            int labelOrdinal = -1;
+            if (label != null) {
+                Integer ordinal = labelOrdinals.get(label);
+                if (ordinal == null) {
+                    return Collections.emptyList();
+                }
+                labelOrdinal = ordinal;
+            }
+
+            float[] query = normalize(vector);
+            int ep = entryPoint;
+            float epDistance = distance(query, ep);
+            for (int lc = maxLevel; lc > 0; lc--) {
+                int[] closest = greedy(query, ep, epDistance, lc);
+                ep = closest[0];
+                epDistance = Float.intBitsToFloat(closest[1]);
+            }
+
+            NodeHeap found = searchLayer(query, ep, epDistance, Math.max(ef, k), 0, labelOrdinal, allowedIds, true);
+            while (found.size() > k) {
+                found.pop();
+            }
+            Result[] results = new Result[found.size()];
+            for (int i = results.length - 1; i >= 0; i--) {
+                float distance = found.peekDistance();
+                results[i] = new Result(ids[found.pop()], 1 - distance);
+            }
+            return Arrays.asList(results);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Makes every change so far durable: forces the new nodes to disk,
+     * journals the new links of persisted nodes, commits the metadata and
+     * then applies the journal to the mapped links
+     */
+    public void flush() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (vectors != null) {
+                vectors.force();
+                links.force();
+            }
+            boolean journaled = writeJournal();
+            writeMeta();
+            if (journaled) {
+                for (int node = 0; node < persistedSize; node++) {
+                    int[] slot = pendingLinks0[node];
+                    if (slot != null) {
+                        writeLinks0(node, slot);
+                        pendingLinks0[node] = null;
+                    }
+                }
+                links.force();
+                Files.deleteIfExists(dataDirectory.resolve(JOURNAL_FILE));
+            }
+            persistedSize = size;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the index from its live nodes into a new generation directory
+     * and switches to it, dropping every tombstone. Searches keep running
+     * while the copy is built; returns false without switching if the index
+     * was modified meanwhile.
+     */
+    public boolean compact() throws IOException {
+        HnswIndex rebuilt;
+        int startModCount;
+        lock.readLock().lock();
+        try {
+            startModCount = modCount;
+            Path generation = directory.resolve("gen-" + System.currentTimeMillis());
+            rebuilt = openData(directory, generation, m, efConstruction);
+            try {
+                for (int node = 0; node < size; node++) {
+                    if ((deleted[node >>> 6] & (1L << node)) == 0) {
+                        rebuilt.add(ids[node], labelNames.get(labels[node]), vector(node));
+                    }
+                }
+                rebuilt.flush();
+            } catch (IOException | RuntimeException e) {
+                rebuilt.discard();
+                throw e;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (modCount != startModCount) {
+                rebuilt.discard();
+                return false;
+            }
+            Path temp = directory.resolve(CURRENT_FILE + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+                out.write(rebuilt.dataDirectory.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+                out.getFD().sync();
+            }
+            Files.move(temp, directory.resolve(CURRENT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            vectorChannel.close();
+            linkChannel.close();
+            Path previous = dataDirectory;
+            adopt(rebuilt);
+            deleteData(previous);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        vectorChannel.close();
+        linkChannel.close();
+    }
+
+    private int[] greedy(float[] query, int ep, float epDistance, int level) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int count = neighborCount(ep, level);
+            for (int i = 0; i < count; i++) {
+                int candidate = neighbor(ep, level, i);
+                float d = distance(query, candidate);
+                if (d < epDistance) {
+                    epDistance = d;
+                    ep = candidate;
+                    changed = true;
+                }
+            }
+        }
+        return new int[]{ep, Float.floatToIntBits(epDistance)};
+    }
+
+    // Results only hold accepted nodes, but traversal goes through every node
+    private NodeHeap searchLayer(float[] query, int ep, float epDistance, int ef, int level,
+                                 int labelOrdinal, Set<String> allowedIds, boolean filter) {
+        long[] visited = new long[(size + 63) / 64];
+        NodeHeap candidates = new NodeHeap(false, ef * 2);
+        NodeHeap results = new NodeHeap(true, ef + 1);
+
+        visited[ep >>> 6] |= 1L << ep;
+        candidates.push(ep, epDistance);
+        if (!filter || accepts(ep, labelOrdinal, allowedIds)) {
+            results.push(ep, epDistance);
+        }
+
+        while (candidates.size() > 0) {
+            if (results.size() >= ef && candidates.peekDistance() > results.peekDistance()) {
+                break;
+            }
+            int current = candidates.pop();
+            int count = neighborCount(current, level);
+            for (int i = 0; i < count; i++) {
+                int candidate = neighbor(current, level, i);
+                if ((visited[candidate >>> 6] & (1L << candidate)) != 0) {
+                    continue;
+                }
+                visited[candidate >>> 6] |= 1L << candidate;
+
+                float d = distance(query, candidate);
+                if (results.size() < ef || d < results.peekDistance()) {
+                    candidates.push(candidate, d);
+                    if (!filter || accepts(candidate, labelOrdinal, allowedIds)) {
+                        results.push(candidate, d);
+                        if (results.size() > ef) {
+                            results.pop();
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private boolean accepts(int node, int labelOrdinal, Set<String> allowedIds) {
+        return (deleted[node >>> 6] & (1L << node)) == 0 && (labelOrdinal < 0 || labels[node] == labelOrdinal)
+                && (allowedIds == null || allowedIds.contains(ids[node]));
+    }
+
+    // Keeps candidates closer to the base than to any neighbour already kept,
+    // then tops up with the pruned ones; candidates are sorted by distance
+    private int[] selectNeighbors(int[] candidates, float[] distances, int count, int max) {
+        int[] selected = new int[max];
+        int[] pruned = new int[count];
+        int kept = 0;
+        int prunedCount = 0;
+
+        for (int i = 0; i < count && kept < max; i++) {
+            float[] vector = vector(candidates[i]);
+            boolean good = true;
+            for (int j = 0; j < kept; j++) {
+                if (distance(vector, selected[j]) < distances[i]) {
+                    good = false;
+                    break;
+                }
+            }
+            if (good) {
+                selected[kept++] = candidates[i];
+            } else {
+                pruned[prunedCount++] = candidates[i];
+            }
+        }
+        for (int i = 0; i < prunedCount && kept < max; i++) {
+            selected[kept++] = pruned[i];
+        }
+        return Arrays.copyOf(selected, kept);
+    }
+
+    private void link(int node, int newNeighbor, int level, int maxConnections) {
+        int count = neighborCount(node, level);
+        if (count < maxConnections) {
+            int[] slot = heapSlot(node, level);
+            if (slot == null) {
+                int offset = linkOffset(node);
+                links.putInt(offset + (count + 1) * 4, newNeighbor);
+                links.putInt(offset, count + 1);
+            } else {
+                slot[count + 1] = newNeighbor;
+                slot[0] = count + 1;
+            }
+            return;
+        }
+
+        // Full: re-select among the existing links and the new one
+        float[] base = vector(node);
+        int[] candidates = new int[count + 1];
+        float[] distances = new float[count + 1];
+        for (int i = 0; i < count; i++) {
+            candidates[i] = neighbor(node, level, i);
+        }
+        candidates[count] = newNeighbor;
+        for (int i = 0; i <= count; i++) {
+            distances[i] = distance(base, candidates[i]);
+        }
+        sortByDistance(candidates, distances);
+
+        int[] selected = selectNeighbors(candidates, distances, count + 1, maxConnections);
+        setNeighbors(node, level, selected, selected.length);
+    }
+
+    private void setNeighbors(int node, int level, int[] neighbors, int count) {
+        int[] slot = heapSlot(node, level);
+        if (slot == null) {
+            int offset = linkOffset(node);
+            for (int i = 0; i < count; i++) {
+                links.putInt(offset + (i + 1) * 4, neighbors[i]);
+            }
+            links.putInt(offset, count);
+        } else {
+            System.arraycopy(neighbors, 0, slot, 1, count);
+            slot[0] = count;
+        }
+    }
+
+    // The heap copy of a node's links at the level, or null if they are written to the mapped file
+    private int[] heapSlot(int node, int level) {
+        if (level > 0) {
+            return upperLinks[node][level - 1];
+        }
+        if (node >= persistedSize) {
+            // Not in graph.meta yet, so a crash cannot expose these links
+            return null;
+        }
+        int[] slot = pendingLinks0[node];
+        if (slot == null) {
+            slot = new int[m0 + 1];
+            int count = links.getInt(linkOffset(node));
+            slot[0] = count;
+            for (int i = 0; i < count; i++) {
+                slot[i + 1] = links.getInt(linkOffset(node) + (i + 1) * 4);
+            }
+            pendingLinks0[node] = slot;
+        }
+        return slot;
+    }
+
+    private int neighborCount(int node, int level) {
+        if (level > 0) {
+            return upperLinks[node][level - 1][0];
+        }
+        int[] pending = pendingLinks0[node];
+        return pending != null ? pending[0] : links.getInt(linkOffset(node));
+    }
+
+    private int neighbor(int node, int level, int i) {
+        if (level > 0) {
+            return upperLinks[node][level - 1][i + 1];
+        }
+        int[] pending = pendingLinks0[node];
+        return pending != null ? pending[i + 1] : links.getInt(linkOffset(node) + (i + 1) * 4);
+    }
+
+    private void writeLinks0(int node, int[] slot) {
+        int offset = linkOffset(node);
+        for (int i = 0; i < slot[0]; i++) {
+            links.putInt(offset + (i + 1) * 4, slot[i + 1]);
+        }
+        links.putInt(offset, slot[0]);
+    }
+
+    private float distance(float[] query, int node) {
+        int base = vectorOffset(node);
+        float dot = 0;
+        for (int i = 0; i < dimension; i++) {
+            dot += query[i] * vectors.getFloat(base + i * 4);
+        }
+        return 1 - dot;
+    }
+
+    private float[] vector(int node) {
+        float[] vector = new float[dimension];
+        int base = vectorOffset(node);
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = vectors.getFloat(base + i * 4);
+        }
+        return vector;
+    }
+
+    private int vectorOffset(int node) {
+        return HEADER_BYTES + node * dimension * 4;
+    }
+
+    private int linkOffset(int node) {
+        return node * (m0 + 1) * 4;
+    }
+
+    private void markDeleted(int node) {
+        if ((deleted[node >>> 6] & (1L << node)) == 0) {
+            deleted[node >>> 6] |= 1L << node;
+            liveCount--;
+        }
+        nodeById.remove(ids[node]);
+    }
+
+    private int labelOrdinal(String label) {
+        return labelOrdinals.computeIfAbsent(label == null ? "" : label, name -> {
+            labelNames.add(name);
+            return labelNames.size() - 1;
+        });
+    }
+
+    private int randomLevel() {
+        double r = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return Math.min(MAX_LEVEL, (int) (-Math.log(r) * levelMultiplier));
+    }
+
+    private void setM(int m) {
+        this.m = m;
+        this.m0 = m * 2;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    private void ensureCapacity(int needed) throws IOException {
+        if (needed <= capacity) {
+            return;
+        }
+        long newCapacity = Math.max(needed, Math.max(1024, (long) capacity * 2));
+        long vectorBytes = HEADER_BYTES + newCapacity * dimension * 4;
+        long linkBytes = newCapacity * (m0 + 1) * 4;
+        if (vectorBytes > Integer.MAX_VALUE || linkBytes > Integer.MAX_VALUE) {
+            newCapacity = Math.min((Integer.MAX_VALUE - HEADER_BYTES) / (dimension * 4L),
+                    Integer.MAX_VALUE / ((m0 + 1) * 4L));
+            if (newCapacity < needed) {
+                throw new IOException("HNSW index is full at " + capacity + " vectors");
+            }
+            vectorBytes = HEADER_BYTES + newCapacity * dimension * 4;
+            linkBytes = newCapacity * (m0 + 1) * 4;
+        }
+
+        vectors = vectorChannel.map(FileChannel.MapMode.READ_WRITE, 0, vectorBytes);
+        links = linkChannel.map(FileChannel.MapMode.READ_WRITE, 0, linkBytes);
+        vectors.putInt(0, MAGIC);
+        vectors.putInt(4, dimension);
+        growArrays((int) newCapacity);
+    }
+
+    private void mapExisting() throws IOException {
+        long vectorCapacity = (vectorChannel.size() - HEADER_BYTES) / (dimension * 4L);
+        long linkCapacity = linkChannel.size() / ((m0 + 1) * 4L);
+        int mapped = (int) Math.min(vectorCapacity, linkCapacity);
+        if (mapped < size) {
+            throw new IOException("HNSW index files in " + dataDirectory + " are shorter than the metadata");
+        }
+        vectors = vectorChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) mapped * dimension * 4);
+        links = linkChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) mapped * (m0 + 1) * 4);
+        if (vectors.getInt(0) != MAGIC || vectors.getInt(4) != dimension) {
+            throw new IOException("HNSW vector file in " + dataDirectory + " does not match the metadata");
+        }
+        growArrays(mapped);
+    }
+
+    private void growArrays(int newCapacity) {
+        levels = Arrays.copyOf(levels, newCapacity);
+        upperLinks = Arrays.copyOf(upperLinks, newCapacity);
+        labels = Arrays.copyOf(labels, newCapacity);
+        ids = Arrays.copyOf(ids, newCapacity);
+        deleted = Arrays.copyOf(deleted, (newCapacity + 63) / 64);
+        pendingLinks0 = Arrays.copyOf(pendingLinks0, newCapacity);
+        capacity = newCapacity;
+    }
+
+    // Written to a temporary file and moved into place, so a crash leaves the previous metadata
+    private void writeMeta() throws IOException {
+        Path temp = dataDirectory.resolve(META_FILE + ".tmp");
+        FileOutputStream file = new FileOutputStream(temp.toFile());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(MAGIC);
+            out.writeInt(m);
+            out.writeInt(dimension);
+            out.writeInt(size);
+            out.writeInt(entryPoint);
+            out.writeInt(maxLevel);
+
+            out.writeInt(labelNames.size());
+            for (String name : labelNames) {
+                out.writeUTF(name);
+            }
+
+            for (int node = 0; node < size; node++) {
+                out.writeUTF(ids[node]);
+                out.writeInt(labels[node]);
+                out.writeBoolean((deleted[node >>> 6] & (1L << node)) != 0);
+                out.writeInt(levels[node]);
+                for (int level = 1; level <= levels[node]; level++) {
+                    int[] slot = upperLinks[node][level - 1];
+                    out.writeInt(slot[0]);
+                    for (int i = 1; i <= slot[0]; i++) {
+                        out.writeInt(slot[i]);
+                    }
+                }
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temp, dataDirectory.resolve(META_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Records the pending links of persisted nodes with the size they belong
+    // to; returns false if there are none
+    private boolean writeJournal() throws IOException {
+        int pending = 0;
+        for (int node = 0; node < persistedSize; node++) {
+            if (pendingLinks0[node] != null) {
+                pending++;
+            }
+        }
+        if (pending == 0) {
+            return false;
+        }
+
+        Path temp = dataDirectory.resolve(JOURNAL_FILE + ".tmp");
+        FileOutputStream file = new FileOutputStream(temp.toFile());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(MAGIC);
+            out.writeInt(size);
+            out.writeInt(pending);
+            for (int node = 0; node < persistedSize; node++) {
+                int[] slot = pendingLinks0[node];
+                if (slot != null) {
+                    out.writeInt(node);
+                    out.writeInt(slot[0]);
+                    for (int i = 1; i <= slot[0]; i++) {
+                        out.writeInt(slot[i]);
+                    }
+                }
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temp, dataDirectory.resolve(JOURNAL_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+
+    // A journal for the committed size was cut short before it was applied,
+    // so it is applied again; one for a size never committed is discarded
+    private void recoverJournal() throws IOException {
+        Path journal = dataDirectory.resolve(JOURNAL_FILE);
+        if (!Files.exists(journal)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal)))) {
+            if (in.readInt() == MAGIC && in.readInt() == size) {
+                int pending = in.readInt();
+                for (int n = 0; n < pending; n++) {
+                    int node = in.readInt();
+                    int[] slot = new int[in.readInt() + 1];
+                    slot[0] = slot.length - 1;
+                    for (int i = 1; i < slot.length; i++) {
+                        slot[i] = in.readInt();
+                    }
+                    writeLinks0(node, slot);
+                }
+                links.force();
+            }
+        } catch (EOFException e) {
+            // Torn while being written, so the metadata was never committed either
+        }
+        Files.delete(journal);
+    }
+
+    // Takes over the state of a rebuilt index
+    private void adopt(HnswIndex other) {
+        dataDirectory = other.dataDirectory;
+        setM(other.m);
+        dimension = other.dimension;
+        size = other.size;
+        capacity = other.capacity;
+        liveCount = other.liveCount;
+        entryPoint = other.entryPoint;
+        maxLevel = other.maxLevel;
+        persistedSize = other.persistedSize;
+        levels = other.levels;
+        upperLinks = other.upperLinks;
+        labels = other.labels;
+        ids = other.ids;
+        deleted = other.deleted;
+        pendingLinks0 = other.pendingLinks0;
+        nodeById.clear();
+        nodeById.putAll(other.nodeById);
+        labelNames.clear();
+        labelNames.addAll(other.labelNames);
+        labelOrdinals.clear();
+        labelOrdinals.putAll(other.labelOrdinals);
+        vectorChannel = other.vectorChannel;
+        linkChannel = other.linkChannel;
+        vectors = other.vectors;
+        links = other.links;
+        modCount++;
+    }
+
+    // Closes and deletes an index that was never switched to
+    private void discard() throws IOException {
+        vectorChannel.close();
+        linkChannel.close();
+        deleteData(dataDirectory);
+    }
+
+    private void deleteData(Path data) throws IOException {
+        for (String name : new String[]{VECTORS_FILE, LINKS_FILE, META_FILE, JOURNAL_FILE}) {
+            Files.deleteIfExists(data.resolve(name));
+        }
+        if (!data.equals(directory)) {
+            Files.deleteIfExists(data);
+        }
+    }
+
+    private void readMeta() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(dataDirectory.resolve(META_FILE))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an HNSW index: " + directory);
+            }
+            setM(in.readInt());
+            dimension = in.readInt();
+            size = in.readInt();
+            entryPoint = in.readInt();
+            maxLevel = in.readInt();
+
+            int labelCount = in.readInt();
+            for (int i = 0; i < labelCount; i++) {
+                String name = in.readUTF();
+                labelNames.add(name);
+                labelOrdinals.put(name, i);
+            }
+
+            growArrays(size);
+            for (int node = 0; node < size; node++) {
+                ids[node] = in.readUTF();
+                labels[node] = in.readInt();
+                if (in.readBoolean()) {
+                    deleted[node >>> 6] |= 1L << node;
+                } else {
+                    nodeById.put(ids[node], node);
+                    liveCount++;
+                }
+                levels[node] = in.readInt();
+                if (levels[node] > 0) {
+                    upperLinks[node] = new int[levels[node]][m + 1];
+                    for (int level = 1; level <= levels[node]; level++) {
+                        int[] slot = upperLinks[node][level - 1];
+                        slot[0] = in.readInt();
+                        for (int i = 1; i <= slot[0]; i++) {
+                            slot[i] = in.readInt();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float scale = norm == 0 ? 0 : (float) (1 / Math.sqrt(norm));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    private static void sortByDistance(int[] nodes, float[] distances) {
+        // Insertion sort; link lists are short
+        for (int i = 1; i < nodes.length; i++) {
+            int node = nodes[i];
+            float distance = distances[i];
+            int j = i - 1;
+            while (j >= 0 && distances[j] > distance) {
+                nodes[j + 1] = nodes[j];
+                distances[j + 1] = distances[j];
+                j--;
+            }
+            nodes[j + 1] = node;
+            distances[j + 1] = distance;
+        }
+    }
+
+    public static class Result {
+        private final String id;
+        private final float score;
+
+        public Result(String id, float score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public float getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * Binary heap of (node, distance) pairs in parallel primitive arrays
+     */
+    private static class NodeHeap {
+        private final boolean max;
+        private int[] nodes;
+        private float[] distances;
+        private int size;
+
+        NodeHeap(boolean max, int initialCapacity) {
+            this.max = max;
+            this.nodes = new int[Math.max(4, initialCapacity)];
+            this.distances = new float[nodes.length];
+        }
+
+        int size() {
+            return size;
+        }
+
+        float peekDistance() {
+            return distances[0];
+        }
+
+        void push(int node, float distance) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!before(distance, distances[parent])) {
+                    break;
+                }
+                nodes[i] = nodes[parent];
+                distances[i] = distances[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            distances[i] = distance;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            size--;
+            int lastNode = nodes[size];
+            float lastDistance = distances[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && before(distances[child + 1], distances[child])) {
+                    child++;
+                }
+                if (!before(distances[child], lastDistance)) {
+                    break;
+                }
+                nodes[i] = nodes[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            nodes[i] = lastNode;
+            distances[i] = lastDistance;
+            return top;
+        }
+
+        private boolean before(float a, float b) {
+            return max ? a > b : a < b;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.CollegeResources.retrieval;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * A passage of a study material as stored in the chunk index
+ */
+public class MaterialChunk {
+
+    private String id;
+    private String materialId;
+    private String courseId;
+    private String fileName;
+    private int position;
+    private String text;
+    private double score;
+
+    public MaterialChunk() {
+    }
+
+    public MaterialChunk(String materialId, String courseId, String fileName, int position, String text) {
+        this.id = chunkId(materialId, position);
+        this.materialId = materialId;
+        this.courseId = courseId;
+        this.fileName = fileName;
+        this.position = position;
+        this.text = text;
+    }
+
+    /**
+     * Ids depend only on material and position, so re-ingesting a material
+     * overwrites its chunks instead of duplicating them
+     */
+    public static String chunkId(String materialId, int position) {
+        return UUID.nameUUIDFromBytes((materialId + "#" + position).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getMaterialId() {
+        return materialId;
+    }
+
+    public void setMaterialId(String materialId) {
+        this.materialId = materialId;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(String courseId) {
+        this.courseId = courseId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
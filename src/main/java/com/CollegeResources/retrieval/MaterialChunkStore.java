@@ -0,0 +1,28 @@
+package com.CollegeResources.retrieval;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Index of embedded study material chunks used to retrieve passages for MCQ
+ * generation. The backend is chosen with the mcq.retrieval.backend property:
+ * "vector-store" (default) or "hnsw".
+ */
+public interface MaterialChunkStore {
+
+    /**
+     * Adds the chunks, replacing any already stored under the same ids
+     */
+    void add(List<MaterialChunk> chunks);
+
+    /**
+     * Removes the chunks with the given ids; unknown ids are ignored
+     */
+    void delete(List<String> chunkIds);
+
+    /**
+     * Returns up to topK chunks of the given materials of the course most
+     * similar to the query, best first
+     */
+    List<MaterialChunk> search(String courseId, Collection<String> materialIds, String query, int topK);
+}
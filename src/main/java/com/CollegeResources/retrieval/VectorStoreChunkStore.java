@@ -0,0 +1,84 @@
+package com.CollegeResources.retrieval;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chunk store backed by the Spring AI vector store: MongoDB Atlas in
+ * production, or the in-process store when mcq.retrieval.vector-store=simple.
+ * Atlas needs courseId and materialId listed in
+ * spring.ai.vectorstore.mongodb.metadata-fields-to-filter.
+ */
+@Component
+@ConditionalOnProperty(name = "mcq.retrieval.backend", havingValue = "vector-store", matchIfMissing = true)
+public class VectorStoreChunkStore implements MaterialChunkStore {
+
+    private final VectorStore vectorStore;
+
+    public VectorStoreChunkStore(VectorStore vectorStore) {
+        this.vectorStore = vectorStore;
+    }
+
+    @Override
+    public void add(List<MaterialChunk> chunks) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        List<Document> documents = new ArrayList<>();
+        for (MaterialChunk chunk : chunks) {
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("materialId", chunk.getMaterialId());
+            metadata.put("courseId", chunk.getCourseId());
+            metadata.put("fileName", chunk.getFileName());
+            metadata.put("position", chunk.getPosition());
+            documents.add(new Document(chunk.getId(), chunk.getText(), metadata));
+        }
+        vectorStore.add(documents);
+    }
+
+    @Override
+    public void delete(List<String> chunkIds) {
+        if (!chunkIds.isEmpty()) {
+            vectorStore.delete(chunkIds);
+        }
+    }
+
+    @Override
+    public List<MaterialChunk> search(String courseId, Collection<String> materialIds, String query, int topK) {
+        if (materialIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        FilterExpressionBuilder filter = new FilterExpressionBuilder();
+        SearchRequest request = SearchRequest.builder()
+                .query(query)
+                .topK(topK)
+                .filterExpression(filter.and(
+                        filter.eq("courseId", courseId),
+                        filter.in("materialId", new ArrayList<Object>(materialIds))).build())
+                .build();
+
+        List<MaterialChunk> chunks = new ArrayList<>();
+        for (Document document : vectorStore.similaritySearch(request)) {
+            Map<String, Object> metadata = document.getMetadata();
+            MaterialChunk chunk = new MaterialChunk(
+                    (String) metadata.get("materialId"),
+                    (String) metadata.get("courseId"),
+                    (String) metadata.get("fileName"),
+                    ((Number) metadata.get("position")).intValue(),
+                    document.getText());
+            chunk.setScore(document.getScore() == null ? 0 : document.getScore());
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,138 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.config.AuthenticatedUser;
+import com.CollegeResources.model.Course;
+import com.CollegeResources.model.Role;
+import com.CollegeResources.repository.CourseRepository;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers "may this caller see this course's materials" from an in-memory
+ * courseId -> (department, batchYear) map, so material endpoints need no
+ * user or course lookup. The map is kept current from course save/delete
+ * events and reloaded periodically to pick up changes made by other nodes.
+ */
+@Service
+public class CourseAccessService extends AbstractMongoEventListener<Course> {
+
+    public enum Decision {
+        ALLOWED, FORBIDDEN, NOT_FOUND
+    }
+
+    private final CourseRepository courseRepository;
+    private volatile Map<String, CourseScope> scopes = new ConcurrentHashMap<>();
+
+    public CourseAccessService(CourseRepository courseRepository) {
+        this.courseRepository = courseRepository;
+    }
+
+    /**
+     * Checks whether the authenticated caller may access the course
+     */
+    public Decision checkAccess(Authentication auth, String courseId) {
+        if (auth == null || !(auth.getPrincipal() instanceof AuthenticatedUser)) {
+            return Decision.FORBIDDEN;
+        }
+        AuthenticatedUser caller = (AuthenticatedUser) auth.getPrincipal();
+
+        // Admins may access everything
+        if (caller.getRole() == Role.ADMIN) {
+            return Decision.ALLOWED;
+        }
+
+        CourseScope scope = getScope(courseId);
+        if (scope == null) {
+            return Decision.NOT_FOUND;
+        }
+        return scope.matches(caller.getDepartment(), caller.getBatchYear())
+                ? Decision.ALLOWED
+                : Decision.FORBIDDEN;
+    }
+
+    /**
+     * Department of a course, or null if it is unknown
+     */
+    public String getDepartment(String courseId) {
+        CourseScope scope = getScope(courseId);
+        return scope == null ? null : scope.department;
+    }
+
+    private CourseScope getScope(String courseId) {
+        if (courseId == null) {
+            return null;
+        }
+        CourseScope scope = scopes.get(courseId);
+        if (scope != null) {
+            return scope;
+        }
+
+        // Created on another node since the last reload
+        Optional<Course> course = courseRepository.findById(courseId);
+        if (course.isEmpty()) {
+            return null;
+        }
+        scope = CourseScope.of(course.get());
+        scopes.put(courseId, scope);
+        return scope;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${courses.access.reload-interval-ms:300000}",
+            initialDelayString = "${courses.access.reload-interval-ms:300000}")
+    public void reload() {
+        Map<String, CourseScope> loaded = new ConcurrentHashMap<>();
+        for (Course course : courseRepository.findAll()) {
+            loaded.put(course.getId(), CourseScope.of(course));
+        }
+        scopes = loaded;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Course> event) {
+        Course course = event.getSource();
+        scopes.put(course.getId(), CourseScope.of(course));
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Course> event) {
+        Document query = event.getSource();
+        Object id = query.get("_id");
+        if (id != null && !(id instanceof Document)) {
+            scopes.remove(id.toString());
+        } else {
+            // Deleted by some other criteria; rebuild from the database
+            reload();
+        }
+    }
+
+    private static final class CourseScope {
+        private final String department;
+        private final String batchYear;
+
+        private CourseScope(String department, String batchYear) {
+            this.department = department;
+            this.batchYear = batchYear;
+        }
+
+        static CourseScope of(Course course) {
+            return new CourseScope(course.getDepartment(), course.getBatchYear());
+        }
+
+        boolean matches(String department, String batchYear) {
+            return this.department != null && this.department.equals(department)
+                    && this.batchYear != null && this.batchYear.equals(batchYear);
+        }
+    }
+}
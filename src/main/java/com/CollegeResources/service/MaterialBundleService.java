@@ -0,0 +1,236 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.model.StudyMaterial;
+import com.CollegeResources.storage.BlobStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams all materials of a course as one ZIP archive. The archive is built
+ * while it is written to the client: only the read-ahead bytes are held in
+ * memory and no temp files are created. Files that can't be read are left
+ * out and listed in a MISSING_FILES.txt entry instead of failing the archive.
+ */
+@Service
+public class MaterialBundleService {
+
+    // Formats that are already compressed; deflating them again only burns CPU
+    private static final Set<String> COMPRESSED_TYPES = Set.of(
+            "pdf", "jpg", "jpeg", "png", "gif", "zip", "rar", "7z",
+            "docx", "xlsx", "pptx", "mp4", "mp3");
+
+    private final StudyMaterialService studyMaterialService;
+    private final BlobStorage blobStorage;
+
+    @Value("${materials.bundle.read-ahead:2}")
+    private int readAhead;
+
+    // Read ahead per object; the rest is fetched when its entry is written
+    @Value("${materials.bundle.prefetch-bytes:1048576}")
+    private int prefetchBytes;
+
+    @Value("${materials.bundle.resume-attempts:2}")
+    private int resumeAttempts;
+
+    public MaterialBundleService(StudyMaterialService studyMaterialService, BlobStorage blobStorage) {
+        this.studyMaterialService = studyMaterialService;
+        this.blobStorage = blobStorage;
+    }
+
+    /**
+     * Writes the materials as a ZIP to the output stream. The first bytes of
+     * up to readAhead objects are fetched ahead of the entry currently being
+     * written, so the next storage round trip overlaps with streaming the
+     * current entry. Read-ahead keeps bytes, not open streams, so a slow
+     * client can't make storage connections time out.
+     */
+    public void writeBundle(List<StudyMaterial> materials, OutputStream outputStream) throws IOException {
+        Deque<Future<Prefetched>> pending = new ArrayDeque<>();
+        Set<String> entryNames = new HashSet<>();
+        List<String> missing = new ArrayList<>();
+        int next = 0;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             ZipOutputStream zip = new ZipOutputStream(outputStream)) {
+            try {
+                for (int written = 0; written < materials.size(); written++) {
+                    while (next < materials.size() && pending.size() <= Math.max(0, readAhead)) {
+                        String key = studyMaterialService.getObjectKey(materials.get(next++));
+                        pending.addLast(executor.submit(() -> key == null ? null : prefetch(key)));
+                    }
+
+                    StudyMaterial material = materials.get(written);
+                    Prefetched content = await(pending.removeFirst(), material);
+                    if (content == null) {
+                        missing.add(displayName(material) + " (could not be read)");
+                        continue;
+                    }
+
+                    // Opened before the entry starts, so a failure only skips this file
+                    InputStream rest = null;
+                    if (content.head.length < content.size) {
+                        try {
+                            rest = blobStorage.getRange(content.key, content.head.length, content.size - 1);
+                        } catch (IOException | RuntimeException e) {
+                            System.err.println("Skipping " + material.getFileName() + " in bundle: " + e.getMessage());
+                            missing.add(displayName(material) + " (could not be read)");
+                            continue;
+                        }
+                    }
+
+                    String extension = material.getFileType() == null ? "" : material.getFileType().toLowerCase();
+                    zip.setLevel(COMPRESSED_TYPES.contains(extension)
+                            ? Deflater.NO_COMPRESSION
+                            : Deflater.DEFAULT_COMPRESSION);
+
+                    ZipEntry entry = new ZipEntry(uniqueEntryName(material, entryNames));
+                    if (material.getUploadDate() != null) {
+                        entry.setTimeLocal(material.getUploadDate());
+                    }
+                    zip.putNextEntry(entry);
+                    zip.write(content.head);
+                    if (rest != null && !copyRest(content, rest, zip)) {
+                        // Bytes already sent can't be taken back, so the entry stays truncated
+                        System.err.println("Truncated " + material.getFileName() + " in bundle");
+                        missing.add(entry.getName() + " (incomplete)");
+                    }
+                    zip.closeEntry();
+                }
+
+                if (!missing.isEmpty()) {
+                    zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+                    zip.putNextEntry(new ZipEntry(uniqueEntryName("MISSING_FILES.txt", entryNames)));
+                    zip.write(("These files could not be included in full:\n" + String.join("\n", missing) + "\n")
+                            .getBytes(StandardCharsets.UTF_8));
+                    zip.closeEntry();
+                }
+            } finally {
+                // Client went away or an entry failed: stop fetching ahead
+                for (Future<Prefetched> future : pending) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
+    // Size and first bytes of the object; the stream is closed before returning
+    private Prefetched prefetch(String key) throws IOException {
+        long size = blobStorage.head(key)
+                .orElseThrow(() -> new IOException("Object " + key + " does not exist"))
+                .getSize();
+        if (size == 0) {
+            return new Prefetched(key, 0, new byte[0]);
+        }
+        try (InputStream in = blobStorage.getRange(key, 0, Math.min(size, Math.max(1, prefetchBytes)) - 1)) {
+            return new Prefetched(key, size, in.readAllBytes());
+        }
+    }
+
+    /**
+     * Copies the object from the end of the prefetched bytes. A storage read
+     * that fails part way resumes from the last byte written. Returns false
+     * if the object still could not be read to the end; a failed write to
+     * the client is not retried.
+     */
+    private boolean copyRest(Prefetched content, InputStream first, OutputStream out) throws IOException {
+        long offset = content.head.length;
+        InputStream in = first;
+        byte[] buffer = new byte[8192];
+        int attempts = 0;
+        try {
+            while (offset < content.size) {
+                int read;
+                try {
+                    read = in.read(buffer);
+                } catch (IOException e) {
+                    read = -1;
+                }
+                if (read < 0) {
+                    if (attempts++ >= resumeAttempts) {
+                        return false;
+                    }
+                    closeQuietly(in);
+                    try {
+                        in = blobStorage.getRange(content.key, offset, content.size - 1);
+                    } catch (IOException | RuntimeException e) {
+                        // Counts as another failed attempt on the next read
+                        in = InputStream.nullInputStream();
+                    }
+                    continue;
+                }
+                out.write(buffer, 0, read);
+                offset += read;
+            }
+            return true;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    private void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // The stream already failed; nothing more to release
+        }
+    }
+
+    private Prefetched await(Future<Prefetched> future, StudyMaterial material) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // A missing object should not break the whole archive
+            System.err.println("Skipping " + material.getFileName() + " in bundle: " + e.getCause().getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Bundle download interrupted");
+        }
+    }
+
+    private String displayName(StudyMaterial material) {
+        return material.getFileName() != null ? material.getFileName() : material.getId();
+    }
+
+    private String uniqueEntryName(StudyMaterial material, Set<String> used) {
+        return uniqueEntryName(displayName(material), used);
+    }
+
+    private String uniqueEntryName(String name, Set<String> used) {
+        name = name.replace('/', '_').replace('\\', '_');
+
+        String candidate = name;
+        int dot = name.lastIndexOf('.');
+        for (int i = 2; !used.add(candidate); i++) {
+            candidate = dot > 0
+                    ? name.substring(0, dot) + " (" + i + ")" + name.substring(dot)
+                    : name + " (" + i + ")";
+        }
+        return candidate;
+    }
+
+    private static class Prefetched {
+        final String key;
+        final long size;
+        final byte[] head;
+
+        Prefetched(String key, long size, byte[] head) {
+            this.key = key;
+            this.size = size;
+            this.head = head;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.model.IndexedMaterial;
+import com.CollegeResources.model.StudyMaterial;
+import com.CollegeResources.repository.IndexedMaterialRepository;
+import com.CollegeResources.retrieval.MaterialChunk;
+import com.CollegeResources.retrieval.MaterialChunkStore;
+import com.CollegeResources.utils.TextChunker;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Chunks and embeds study materials once, at upload, and retrieves the
+ * passages relevant to each requested topic at MCQ generation time.
+ */
+@Service
+public class MaterialIndexService extends AbstractMongoEventListener<StudyMaterial> {
+
+    private final MaterialChunkStore chunkStore;
+    private final MaterialTextService materialTextService;
+    private final IndexedMaterialRepository indexedMaterialRepository;
+
+    private final ExecutorService ingestExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Materials being indexed, so repeated requests don't queue them again
+    private final Set<String> ingesting = ConcurrentHashMap.newKeySet();
+
+    @Value("${mcq.context.chunk-chars:800}")
+    private int chunkChars;
+
+    @Value("${mcq.retrieval.top-k:8}")
+    private int topK;
+
+    @Value("${mcq.retrieval.ingest-concurrency:2}")
+    private int ingestConcurrency;
+
+    // Bounds concurrent embedding calls
+    private Semaphore ingestPermits;
+
+    public MaterialIndexService(MaterialChunkStore chunkStore,
+                                MaterialTextService materialTextService,
+                                IndexedMaterialRepository indexedMaterialRepository) {
+        this.chunkStore = chunkStore;
+        this.materialTextService = materialTextService;
+        this.indexedMaterialRepository = indexedMaterialRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        ingestPermits = new Semaphore(Math.max(1, ingestConcurrency));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ingestExecutor.shutdownNow();
+    }
+
+    /**
+     * Whether the material is a previous-year paper. Only those are used as
+     * MCQ context, so only those are indexed.
+     */
+    public static boolean isPreviousPaper(StudyMaterial material) {
+        return material.getFileName() != null && material.getFileName().startsWith("previous-year-paper");
+    }
+
+    /**
+     * Indexes a previous-year paper in the background; failures are logged
+     * and the paper is retried the next time it is needed for generation
+     */
+    public void ingestAsync(StudyMaterial material) {
+        if (!isPreviousPaper(material) || !materialTextService.isSupported(material)
+                || !ingesting.add(material.getId())) {
+            return;
+        }
+        ingestExecutor.submit(() -> {
+            try {
+                ingest(material);
+            } catch (Exception e) {
+                System.err.println("Indexing failed for " + material.getId() + ": " + e.getMessage());
+            } finally {
+                ingesting.remove(material.getId());
+            }
+        });
+    }
+
+    /**
+     * Chunks and embeds the material unless its current content is already indexed
+     */
+    public void ingest(StudyMaterial material) throws Exception {
+        String checksum = materialTextService.checksum(material);
+        Optional<IndexedMaterial> indexed = indexedMaterialRepository.findById(material.getId());
+        if (indexed.isPresent() && checksum.equals(indexed.get().getChecksum())) {
+            return;
+        }
+
+        List<String> texts = TextChunker.split(materialTextService.getText(material), chunkChars);
+        List<MaterialChunk> chunks = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            chunks.add(new MaterialChunk(material.getId(), material.getCourseId(), material.getFileName(), i, texts.get(i)));
+        }
+
+        ingestPermits.acquire();
+        try {
+            chunkStore.add(chunks);
+        } finally {
+            ingestPermits.release();
+        }
+
+        // Ids are positional, so only chunks past the new end are left over
+        if (indexed.isPresent()) {
+            chunkStore.delete(chunkIds(material.getId(), chunks.size(), indexed.get().getChunkCount()));
+        }
+        indexedMaterialRepository.save(new IndexedMaterial(material.getId(), material.getCourseId(), checksum, chunks.size()));
+        System.out.println("Indexed " + chunks.size() + " chunks of " + material.getFileName());
+    }
+
+    /**
+     * Returns the passages of the given materials most similar to each topic,
+     * keyed by material in input order with passages in document order.
+     * Materials not indexed yet are queued for indexing and contribute their
+     * full text meanwhile, as do indexed ones none of whose chunks matched.
+     */
+    public Map<StudyMaterial, String> retrieve(String courseId, List<StudyMaterial> materials, List<String> topics) {
+        Map<String, StudyMaterial> byId = new LinkedHashMap<>();
+        for (StudyMaterial material : materials) {
+            byId.put(material.getId(), material);
+        }
+
+        Set<String> indexedIds = new HashSet<>();
+        indexedMaterialRepository.findAllById(byId.keySet()).forEach(indexed -> indexedIds.add(indexed.getId()));
+        List<StudyMaterial> unindexed = new ArrayList<>();
+        for (StudyMaterial material : materials) {
+            if (!indexedIds.contains(material.getId())) {
+                unindexed.add(material);
+                ingestAsync(material);
+            }
+        }
+        if (indexedIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        // Searched among the given materials only, so other materials of the
+        // course can't take their places in the top k
+        Map<String, MaterialChunk> found = new HashMap<>();
+        for (String topic : topics) {
+            for (MaterialChunk chunk : chunkStore.search(courseId, indexedIds, topic, topK)) {
+                found.putIfAbsent(chunk.getId(), chunk);
+            }
+        }
+
+        Map<String, List<MaterialChunk>> grouped = found.values().stream()
+                .sorted(Comparator.comparingInt(MaterialChunk::getPosition))
+                .collect(Collectors.groupingBy(MaterialChunk::getMaterialId));
+
+        List<StudyMaterial> withoutPassages = new ArrayList<>(unindexed);
+        for (StudyMaterial material : materials) {
+            if (indexedIds.contains(material.getId()) && !grouped.containsKey(material.getId())) {
+                withoutPassages.add(material);
+            }
+        }
+        Map<StudyMaterial, String> fullTexts = materialTextService.getTexts(withoutPassages);
+
+        Map<StudyMaterial, String> passages = new LinkedHashMap<>();
+        byId.forEach((id, material) -> {
+            List<MaterialChunk> chunks = grouped.get(id);
+            if (chunks != null) {
+                passages.put(material, chunks.stream().map(MaterialChunk::getText).collect(Collectors.joining("\n\n")));
+            } else if (fullTexts.containsKey(material)) {
+                passages.put(material, fullTexts.get(material));
+            }
+        });
+        return passages;
+    }
+
+    /**
+     * Removes every chunk of the material from the index
+     */
+    public void remove(String materialId) {
+        indexedMaterialRepository.findById(materialId).ifPresent(indexed -> {
+            chunkStore.delete(chunkIds(materialId, 0, indexed.getChunkCount()));
+            indexedMaterialRepository.deleteById(materialId);
+        });
+    }
+
+    private List<String> chunkIds(String materialId, int from, int to) {
+        List<String> ids = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            ids.add(MaterialChunk.chunkId(materialId, i));
+        }
+        return ids;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<StudyMaterial> event) {
+        StudyMaterial material = event.getSource();
+        if (material.getId() != null && material.isDeleted()) {
+            remove(material.getId());
+        }
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<StudyMaterial> event) {
+        Document query = event.getSource();
+        Object id = query.get("_id");
+        if (id instanceof Document && ((Document) id).get("$in") instanceof Collection) {
+            for (Object value : (Collection<?>) ((Document) id).get("$in")) {
+                remove(value.toString());
+            }
+        } else if (id != null) {
+            remove(id.toString());
+        }
+    }
+}
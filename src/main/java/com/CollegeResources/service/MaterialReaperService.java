@@ -0,0 +1,218 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.model.StoredObject;
+import com.CollegeResources.model.StudyMaterial;
+import com.CollegeResources.repository.StudyMaterialRepository;
+import com.CollegeResources.storage.BlobStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Background cleanup for tombstoned materials. Objects are removed with
+ * batched deletes (S3 DeleteObjects) instead of one synchronous call per
+ * material, and a periodic reconciliation sweeps stored objects nothing
+ * refers to.
+ */
+@Service
+public class MaterialReaperService {
+
+    private final StudyMaterialRepository studyMaterialRepository;
+    private final StudyMaterialService studyMaterialService;
+    private final MongoTemplate mongoTemplate;
+    private final BlobStorage blobStorage;
+    private final PdfPreviewService pdfPreviewService;
+
+    @Value("${materials.reaper.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${materials.reaper.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${materials.reaper.reconcile-grace-hours:24}")
+    private long reconcileGraceHours;
+
+    public MaterialReaperService(StudyMaterialRepository studyMaterialRepository,
+                                 StudyMaterialService studyMaterialService,
+                                 MongoTemplate mongoTemplate,
+                                 BlobStorage blobStorage,
+                                 PdfPreviewService pdfPreviewService) {
+        this.studyMaterialRepository = studyMaterialRepository;
+        this.studyMaterialService = studyMaterialService;
+        this.mongoTemplate = mongoTemplate;
+        this.blobStorage = blobStorage;
+        this.pdfPreviewService = pdfPreviewService;
+    }
+
+    /**
+     * Removes tombstoned materials and objects that no material references any more
+     */
+    @Scheduled(fixedDelayString = "${materials.reaper.interval-ms:60000}",
+            initialDelayString = "${materials.reaper.initial-delay-ms:30000}")
+    public void reap() {
+        try {
+            int reaped = reapOnce();
+            if (reaped > 0) {
+                System.out.println("Reaper removed " + reaped + " deleted materials");
+            }
+        } catch (Exception e) {
+            System.err.println("Material reaper run failed: " + e.getMessage());
+        }
+    }
+
+    int reapOnce() {
+        List<StudyMaterial> tombstones = studyMaterialRepository.findByDeleted(true, PageRequest.of(0, batchSize));
+
+        List<String> removableIds = new ArrayList<>();
+        Map<String, List<String>> legacyKeys = new HashMap<>();
+
+        for (StudyMaterial material : tombstones) {
+            if (material.getContentHash() != null) {
+                // The content reference was dropped when the tombstone was set
+                removableIds.add(material.getId());
+                continue;
+            }
+
+            // Uploaded before deduplication: the material owns its object
+            String key = studyMaterialService.getObjectKey(material);
+            if (key == null) {
+                removableIds.add(material.getId());
+            } else {
+                legacyKeys.computeIfAbsent(key, k -> new ArrayList<>()).add(material.getId());
+            }
+        }
+
+        Set<String> keys = new LinkedHashSet<>(legacyKeys.keySet());
+        keys.addAll(claimOrphanedObjects());
+
+        Set<String> failed = deleteObjects(new ArrayList<>(keys));
+
+        // Legacy tombstones whose object could not be removed stay for the next run
+        legacyKeys.forEach((key, ids) -> {
+            if (!failed.contains(key)) {
+                removableIds.addAll(ids);
+            }
+        });
+
+        if (!removableIds.isEmpty()) {
+            studyMaterialRepository.deleteAllById(removableIds);
+            removableIds.forEach(pdfPreviewService::evict);
+        }
+        return removableIds.size();
+    }
+
+    /**
+     * Takes ownership of stored objects whose reference count dropped to zero.
+     * The entry is removed first, so an upload racing with the reaper either
+     * revived it before the removal or creates a fresh entry with a new key.
+     */
+    private List<String> claimOrphanedObjects() {
+        Query orphans = new Query(where("refCount").lte(0)).limit(batchSize);
+        List<String> keys = new ArrayList<>();
+
+        for (StoredObject object : mongoTemplate.find(orphans, StoredObject.class)) {
+            Query claim = new Query(where("_id").is(object.getId()).and("refCount").lte(0));
+            if (mongoTemplate.remove(claim, StoredObject.class).getDeletedCount() == 1) {
+                keys.add(object.getObjectKey());
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Deletes keys (the backend batches them), retrying failed keys with
+     * backoff. Returns the keys that still could not be deleted.
+     */
+    private Set<String> deleteObjects(List<String> keys) {
+        List<String> pending = keys;
+        for (int attempt = 1; attempt <= maxAttempts && !pending.isEmpty(); attempt++) {
+            pending = blobStorage.delete(pending);
+            if (!pending.isEmpty() && attempt < maxAttempts) {
+                sleepQuietly(500L << attempt);
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            System.err.println("Reaper could not delete " + pending.size() + " objects, will retry");
+        }
+        return new HashSet<>(pending);
+    }
+
+    /**
+     * Deletes stored objects that neither a stored object entry nor a material
+     * refers to. Catches objects whose entry was claimed but whose delete never
+     * succeeded, and uploads that failed halfway.
+     */
+    @Scheduled(cron = "${materials.reaper.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        try {
+            Set<String> referenced = referencedKeys();
+
+            // Objects younger than the grace period may belong to an upload in flight
+            Instant cutoff = Instant.now().minus(reconcileGraceHours, ChronoUnit.HOURS);
+            List<String> orphans = new ArrayList<>();
+
+            blobStorage.forEach(blob -> {
+                // Course resources are tracked by ResourceService, not by materials
+                if (blob.getKey().startsWith(ResourceService.KEY_PREFIX)) {
+                    return;
+                }
+                if (!referenced.contains(blob.getKey()) && blob.getLastModified().isBefore(cutoff)) {
+                    orphans.add(blob.getKey());
+                }
+            });
+
+            if (!orphans.isEmpty()) {
+                Set<String> failed = deleteObjects(orphans);
+                System.out.println("Reconciliation removed " + (orphans.size() - failed.size()) + " orphaned objects");
+            }
+        } catch (Exception e) {
+            System.err.println("Storage reconciliation failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Streams the object keys of stored objects and materials. Only the key
+     * fields are read, so neither collection is loaded into memory whole.
+     */
+    private Set<String> referencedKeys() {
+        Set<String> referenced = new HashSet<>();
+
+        Query objects = new Query();
+        objects.fields().include("objectKey");
+        try (Stream<StoredObject> stored = mongoTemplate.stream(objects, StoredObject.class)) {
+            stored.forEach(object -> referenced.add(object.getObjectKey()));
+        }
+
+        // Legacy materials carry their key only in the file URL
+        Query materials = new Query();
+        materials.fields().include("objectKey", "fileUrl");
+        try (Stream<StudyMaterial> stored = mongoTemplate.stream(materials, StudyMaterial.class)) {
+            stored.forEach(material -> {
+                String key = studyMaterialService.getObjectKey(material);
+                if (key != null) {
+                    referenced.add(key);
+                }
+            });
+        }
+        return referenced;
+    }
+
+    private void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
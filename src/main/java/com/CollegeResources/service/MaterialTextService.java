@@ -0,0 +1,255 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.model.ExtractedText;
+import com.CollegeResources.model.StudyMaterial;
+import com.CollegeResources.repository.ExtractedTextRepository;
+import com.CollegeResources.storage.BlobMetadata;
+import com.CollegeResources.storage.BlobStorage;
+import jakarta.annotation.PostConstruct;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Text of study materials for MCQ generation. Extracted text is persisted
+ * keyed by material id and content checksum, with an in-memory LRU in front,
+ * so repeat requests never parse the same PDF again.
+ *
+ * Extraction runs on virtual threads with a concurrency cap, and an
+ * admission budget limits the total size of documents being parsed at once
+ * across all requests.
+ */
+@Service
+public class MaterialTextService extends AbstractMongoEventListener<StudyMaterial> {
+
+    private final ExtractedTextRepository extractedTextRepository;
+    private final StudyMaterialService studyMaterialService;
+    private final BlobStorage blobStorage;
+
+    // Access-ordered, bounded by total characters held
+    private final LinkedHashMap<String, ExtractedText> lru = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedChars;
+
+    @Value("${mcq.text-cache.max-chars:20000000}")
+    private long maxCachedChars;
+
+    @Value("${mcq.extraction.max-concurrency:4}")
+    private int maxConcurrency;
+
+    @Value("${mcq.extraction.max-inflight-bytes:268435456}")
+    private long maxInflightBytes;
+
+    @Value("${mcq.extraction.max-main-memory-bytes:16777216}")
+    private long maxMainMemoryBytes;
+
+    private Semaphore extractionSlots;
+    private Semaphore inflightKilobytes;
+    private int budgetKilobytes;
+
+    public MaterialTextService(ExtractedTextRepository extractedTextRepository,
+                               StudyMaterialService studyMaterialService,
+                               BlobStorage blobStorage) {
+        this.extractedTextRepository = extractedTextRepository;
+        this.studyMaterialService = studyMaterialService;
+        this.blobStorage = blobStorage;
+    }
+
+    @PostConstruct
+    public void init() {
+        extractionSlots = new Semaphore(Math.max(1, maxConcurrency));
+        budgetKilobytes = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxInflightBytes / 1024));
+        // Fair, so a large document is not starved by a stream of small ones
+        inflightKilobytes = new Semaphore(budgetKilobytes, true);
+    }
+
+    public boolean isSupported(StudyMaterial material) {
+        String fileType = material.getFileType() == null ? "" : material.getFileType().toLowerCase();
+        return "pdf".equals(fileType) || "txt".equals(fileType);
+    }
+
+    /**
+     * Returns the material's text, extracting it only on a cache miss
+     */
+    public String getText(StudyMaterial material) throws IOException {
+        String checksum = checksum(material);
+
+        ExtractedText cached = getCached(material.getId());
+        if (cached != null && checksum.equals(cached.getChecksum())) {
+            return cached.getText();
+        }
+
+        Optional<ExtractedText> stored = extractedTextRepository.findById(material.getId());
+        if (stored.isPresent() && checksum.equals(stored.get().getChecksum())) {
+            putCached(stored.get());
+            return stored.get().getText();
+        }
+
+        String text = extract(material);
+        ExtractedText extracted = extractedTextRepository.save(new ExtractedText(material.getId(), checksum, text));
+        putCached(extracted);
+        return text;
+    }
+
+    /**
+     * Returns the text of several materials, extracting cache misses in
+     * parallel. Materials whose text could not be read are left out; the
+     * result keeps the input order.
+     */
+    public Map<StudyMaterial, String> getTexts(List<StudyMaterial> materials) {
+        Map<StudyMaterial, Future<String>> futures = new LinkedHashMap<>();
+        Map<StudyMaterial, String> texts = new LinkedHashMap<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (StudyMaterial material : materials) {
+                futures.put(material, executor.submit(() -> getText(material)));
+            }
+
+            futures.forEach((material, future) -> {
+                try {
+                    texts.put(material, future.get());
+                } catch (ExecutionException e) {
+                    System.err.println("Error extracting content from " + material.getFileName() + ": "
+                            + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        return texts;
+    }
+
+    /**
+     * Drops everything cached for a material
+     */
+    public void invalidate(String materialId) {
+        evict(materialId);
+        extractedTextRepository.deleteById(materialId);
+    }
+
+    String extract(StudyMaterial material) throws IOException {
+        String key = studyMaterialService.getObjectKey(material);
+        String fileType = material.getFileType().toLowerCase();
+
+        // Admission: reserve the document's size from the shared budget first
+        long size = blobStorage.head(key).map(BlobMetadata::getSize).orElse(0L);
+        int kilobytes = (int) Math.min(budgetKilobytes, Math.max(1, (size + 1023) / 1024));
+
+        try {
+            inflightKilobytes.acquire(kilobytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for extraction budget");
+        }
+        try {
+            extractionSlots.acquire();
+        } catch (InterruptedException e) {
+            inflightKilobytes.release(kilobytes);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for an extraction slot");
+        }
+
+        try (InputStream in = blobStorage.get(key)) {
+            if ("pdf".equals(fileType)) {
+                // Keep at most maxMainMemoryBytes on the heap, spill the rest to a scratch file
+                try (PDDocument document = PDDocument.load(in, MemoryUsageSetting.setupMixed(maxMainMemoryBytes))) {
+                    PDFTextStripper stripper = new PDFTextStripper();
+                    return stripper.getText(document);
+                }
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } finally {
+            extractionSlots.release();
+            inflightKilobytes.release(kilobytes);
+        }
+    }
+
+    // The stored bytes of a material never change, so hash (or key) identifies the content
+    public String checksum(StudyMaterial material) {
+        if (material.getContentHash() != null) {
+            return material.getContentHash();
+        }
+        return "key:" + studyMaterialService.getObjectKey(material);
+    }
+
+    private synchronized ExtractedText getCached(String materialId) {
+        return lru.get(materialId);
+    }
+
+    private synchronized void putCached(ExtractedText text) {
+        ExtractedText previous = lru.put(text.getId(), text);
+        if (previous != null) {
+            cachedChars -= previous.getText().length();
+        }
+        cachedChars += text.getText().length();
+
+        Iterator<ExtractedText> eldest = lru.values().iterator();
+        while (cachedChars > maxCachedChars && eldest.hasNext()) {
+            ExtractedText evicted = eldest.next();
+            if (evicted == text) {
+                break;
+            }
+            cachedChars -= evicted.getText().length();
+            eldest.remove();
+        }
+    }
+
+    private synchronized void evict(String materialId) {
+        ExtractedText removed = lru.remove(materialId);
+        if (removed != null) {
+            cachedChars -= removed.getText().length();
+        }
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<StudyMaterial> event) {
+        StudyMaterial material = event.getSource();
+        if (material.getId() == null) {
+            return;
+        }
+        if (material.isDeleted()) {
+            invalidate(material.getId());
+        } else {
+            // Reloaded from Mongo on next use; the checksum decides if it is still valid
+            evict(material.getId());
+        }
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<StudyMaterial> event) {
+        for (String id : deletedIds(event.getSource())) {
+            invalidate(id);
+        }
+    }
+
+    // Handles both {_id: x} and {_id: {$in: [...]}} delete queries
+    private List<String> deletedIds(Document query) {
+        Object id = query.get("_id");
+        if (id instanceof Document) {
+            Object in = ((Document) id).get("$in");
+            List<String> ids = new ArrayList<>();
+            if (in instanceof Collection) {
+                for (Object value : (Collection<?>) in) {
+                    ids.add(value.toString());
+                }
+            }
+            return ids;
+        }
+        return id == null ? Collections.emptyList() : List.of(id.toString());
+    }
+}
@@ -0,0 +1,86 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.model.StudyMaterial;
+import jakarta.annotation.PreDestroy;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Download and view counters per material. Hits only touch striped in-memory
+ * counters; the totals are written to Mongo periodically as one unordered
+ * bulk of $inc updates instead of one write per hit.
+ */
+@Service
+public class MaterialUsageService {
+
+    private final MongoTemplate mongoTemplate;
+    private final TrendingService trendingService;
+
+    private final ConcurrentHashMap<String, LongAdder> downloads = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> views = new ConcurrentHashMap<>();
+
+    public MaterialUsageService(MongoTemplate mongoTemplate, TrendingService trendingService) {
+        this.mongoTemplate = mongoTemplate;
+        this.trendingService = trendingService;
+    }
+
+    public void recordDownload(StudyMaterial material) {
+        downloads.computeIfAbsent(material.getId(), id -> new LongAdder()).increment();
+        trendingService.recordDownload(material);
+    }
+
+    public void recordView(StudyMaterial material) {
+        views.computeIfAbsent(material.getId(), id -> new LongAdder()).increment();
+    }
+
+    /**
+     * Writes the counts gathered since the last flush
+     */
+    @Scheduled(fixedDelayString = "${materials.usage.flush-interval-ms:10000}")
+    @PreDestroy
+    public void flush() {
+        Map<String, Long> downloadDeltas = drain(downloads);
+        Map<String, Long> viewDeltas = drain(views);
+        if (downloadDeltas.isEmpty() && viewDeltas.isEmpty()) {
+            return;
+        }
+
+        Map<String, Update> updates = new HashMap<>();
+        downloadDeltas.forEach((id, n) -> updates.computeIfAbsent(id, k -> new Update()).inc("downloadCount", n));
+        viewDeltas.forEach((id, n) -> updates.computeIfAbsent(id, k -> new Update()).inc("viewCount", n));
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StudyMaterial.class);
+        updates.forEach((id, update) -> bulk.updateOne(new Query(where("_id").is(id)), update));
+
+        try {
+            bulk.execute();
+        } catch (RuntimeException e) {
+            // Put the counts back so the next flush retries them
+            downloadDeltas.forEach((id, n) -> downloads.computeIfAbsent(id, k -> new LongAdder()).add(n));
+            viewDeltas.forEach((id, n) -> views.computeIfAbsent(id, k -> new LongAdder()).add(n));
+            System.err.println("Failed to flush material usage counters: " + e.getMessage());
+        }
+    }
+
+    private Map<String, Long> drain(ConcurrentHashMap<String, LongAdder> counters) {
+        Map<String, Long> deltas = new HashMap<>();
+        counters.forEach((id, adder) -> {
+            long n = adder.sumThenReset();
+            if (n > 0) {
+                deltas.put(id, n);
+            }
+        });
+        return deltas;
+    }
+}
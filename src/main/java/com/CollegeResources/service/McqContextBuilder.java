@@ -0,0 +1,203 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.model.StudyMaterial;
+import com.CollegeResources.utils.TextChunker;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the previous-papers section of the MCQ prompt. Paper text is split
+ * into chunks, each chunk is scored against the requested topics with BM25,
+ * and the best chunks are packed into a fixed token budget.
+ */
+@Service
+public class McqContextBuilder {
+
+    private static final Pattern TERM = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "that", "the", "this", "to", "was", "were", "which", "with");
+
+    // Standard BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
+    @Value("${mcq.context.max-tokens:3000}")
+    private int maxTokens;
+
+    @Value("${mcq.context.chunk-chars:800}")
+    private int chunkChars;
+
+    /**
+     * Returns the most relevant passages of the given papers, grouped by
+     * paper and in their original order, within the configured token budget.
+     */
+    public String build(Map<StudyMaterial, String> texts, List<String> topics) {
+        return build(texts, topics, maxTokens);
+    }
+
+    public String build(Map<StudyMaterial, String> texts, List<String> topics, int tokenBudget) {
+        List<Chunk> chunks = new ArrayList<>();
+        int paper = 0;
+        for (Map.Entry<StudyMaterial, String> entry : texts.entrySet()) {
+            int position = 0;
+            for (String text : TextChunker.split(entry.getValue(), chunkChars)) {
+                chunks.add(new Chunk(entry.getKey(), paper, position++, text));
+            }
+            paper++;
+        }
+        if (chunks.isEmpty()) {
+            return "";
+        }
+
+        score(chunks, terms(topics == null ? "" : String.join(" ", topics)));
+
+        // Best first; on equal scores take earlier chunks, interleaving papers
+        List<Chunk> ranked = new ArrayList<>(chunks);
+        ranked.sort(Comparator.comparingDouble((Chunk c) -> c.score).reversed()
+                .thenComparingInt(c -> c.position)
+                .thenComparingInt(c -> c.paper));
+
+        // A paper's header is paid for by its first selected chunk only
+        List<Chunk> selected = new ArrayList<>();
+        Set<Integer> papersUsed = new HashSet<>();
+        int used = 0;
+        for (Chunk chunk : ranked) {
+            int cost = tokenCountEstimator.estimate(chunkText(chunk));
+            if (!papersUsed.contains(chunk.paper)) {
+                cost += tokenCountEstimator.estimate(header(chunk));
+            }
+            if (used + cost <= tokenBudget) {
+                selected.add(chunk);
+                papersUsed.add(chunk.paper);
+                used += cost;
+            }
+        }
+
+        // Token counts are not exactly additive across boundaries, so check
+        // the assembled text and drop the weakest chunks until it fits
+        String context = render(selected);
+        while (!selected.isEmpty() && tokenCountEstimator.estimate(context) > tokenBudget) {
+            selected.remove(lowestScore(selected));
+            context = render(selected);
+        }
+        return context;
+    }
+
+    public int countTokens(String text) {
+        return tokenCountEstimator.estimate(text);
+    }
+
+    private void score(List<Chunk> chunks, Set<String> queryTerms) {
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        long totalLength = 0;
+
+        for (Chunk chunk : chunks) {
+            chunk.termFrequency = new HashMap<>();
+            for (String term : termList(chunk.text)) {
+                chunk.termFrequency.merge(term, 1, Integer::sum);
+                chunk.length++;
+            }
+            totalLength += chunk.length;
+            for (String term : chunk.termFrequency.keySet()) {
+                if (queryTerms.contains(term)) {
+                    documentFrequency.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+
+        double averageLength = Math.max(1.0, (double) totalLength / chunks.size());
+        int n = chunks.size();
+
+        for (Chunk chunk : chunks) {
+            double score = 0;
+            for (String term : queryTerms) {
+                Integer tf = chunk.termFrequency.get(term);
+                if (tf == null) {
+                    continue;
+                }
+                int df = documentFrequency.getOrDefault(term, 0);
+                double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+                score += idf * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * chunk.length / averageLength));
+            }
+            chunk.score = score;
+            chunk.termFrequency = null;
+        }
+    }
+
+    private String render(List<Chunk> selected) {
+        List<Chunk> ordered = new ArrayList<>(selected);
+        ordered.sort(Comparator.comparingInt((Chunk c) -> c.paper).thenComparingInt(c -> c.position));
+
+        StringBuilder content = new StringBuilder();
+        StudyMaterial currentPaper = null;
+        for (Chunk chunk : ordered) {
+            if (chunk.material != currentPaper) {
+                content.append(header(chunk));
+                currentPaper = chunk.material;
+            }
+            content.append(chunkText(chunk));
+        }
+        return content.toString();
+    }
+
+    private static String header(Chunk chunk) {
+        return "=== " + chunk.material.getFileName() + " ===\n";
+    }
+
+    private static String chunkText(Chunk chunk) {
+        return chunk.text + "\n\n";
+    }
+
+    private Chunk lowestScore(List<Chunk> chunks) {
+        Chunk lowest = chunks.get(0);
+        for (Chunk chunk : chunks) {
+            if (chunk.score < lowest.score) {
+                lowest = chunk;
+            }
+        }
+        return lowest;
+    }
+
+    private static Set<String> terms(String text) {
+        return new HashSet<>(termList(text));
+    }
+
+    private static List<String> termList(String text) {
+        List<String> terms = new ArrayList<>();
+        Matcher matcher = TERM.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            String term = matcher.group();
+            if (term.length() > 1 && !STOP_WORDS.contains(term)) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    private static class Chunk {
+        final StudyMaterial material;
+        final int paper;
+        final int position;
+        final String text;
+        Map<String, Integer> termFrequency;
+        int length;
+        double score;
+
+        Chunk(StudyMaterial material, int paper, int position, String text) {
+            this.material = material;
+            this.paper = paper;
+            this.position = position;
+            this.text = text;
+        }
+    }
+}
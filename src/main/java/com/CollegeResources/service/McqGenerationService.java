@@ -1,30 +1,36 @@
 package com.CollegeResources.service;
 
 import com.CollegeResources.model.*;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.CollegeResources.utils.IncrementalMcqParser;
+import com.CollegeResources.utils.SingleFlight;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
+import jakarta.annotation.PreDestroy;
 import org.springframework.ai.chat.messages.UserMessage;
-import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class McqGenerationService {
 
-    private final ChatModel chatModel;
+    private final ResilientChatClient chatClient;
 
 
 
@@ -34,133 +40,501 @@ public class McqGenerationService {
    @Autowired
     private StudyMaterialService studyMaterialService;
 
-    @Value("${file.upload-dir}")
-    private String uploadDir;
+    @Autowired
+    private MaterialTextService materialTextService;
+
+    @Autowired
+    private McqContextBuilder mcqContextBuilder;
+
+    @Autowired
+    private MaterialIndexService materialIndexService;
+
+    @Autowired
+    private QuestionBankService questionBankService;
+
+    @Autowired
+    private McqMetricsService mcqMetricsService;
+
+    @Autowired
+    private QuestionSimilarityService questionSimilarityService;
+
+    @Value("${mcq.bank.low-watermark:15}")
+    private long bankLowWatermark;
+
+    @Value("${mcq.bank.refill-batch:15}")
+    private int bankRefillBatch;
+
+    // Identical concurrent generations share one model call
+    private final SingleFlight<String, List<McqQuestion>> generations = new SingleFlight<>();
+    private final Map<String, RecentResult> recentResults = new ConcurrentHashMap<>();
+
+    @Value("${mcq.coalesce.result-ttl-ms:0}")
+    private long resultCacheTtlMs;
+
+    @Value("${mcq.salvage.max-followups:2}")
+    private int salvageMaxFollowups;
 
+    @Value("${mcq.fanout.enabled:true}")
+    private boolean fanOutEnabled;
 
+    @Value("${mcq.fanout.chunk-size:10}")
+    private int fanOutChunkSize;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Value("${mcq.fanout.parallelism:3}")
+    private int fanOutParallelism;
 
-    public McqGenerationService(ChatModel chatModel) {
-        this.chatModel = chatModel;
+    @Value("${mcq.fanout.max-attempts:2}")
+    private int fanOutMaxAttempts;
+
+    // Course and topics currently being refilled, so refills do not pile up,
+    // and when each was last refilled
+    private final Set<String> refilling = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> lastRefill = new ConcurrentHashMap<>();
+
+    @Value("${mcq.bank.refill-interval-ms:600000}")
+    private long bankRefillIntervalMs;
+    private final ExecutorService refillExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+
+
+    // Extra fields the model adds are ignored rather than failing the question
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    public McqGenerationService(ResilientChatClient chatClient) {
+        this.chatClient = chatClient;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refillExecutor.shutdownNow();
     }
 
-    public List<McqQuestion> generateMcqQuestions(McqRequest request) {
+    /**
+     * Serves questions the user has not seen from the question bank and asks
+     * the model only for the shortfall. The bank is topped up in the
+     * background when the user is running out of unseen questions.
+     */
+    public List<McqQuestion> generateMcqQuestions(McqRequest request, String userEmail) {
         // Get course information
-        Optional<Course> courseOpt = courseService.getCourseById(request.getCourseId());
+        Optional<Course> courseOpt = mcqMetricsService.time(McqMetricsService.COURSE_LOOKUP,
+                () -> courseService.getCourseById(request.getCourseId()));
         if (!courseOpt.isPresent()) {
             throw new RuntimeException("Course not found");
         }
 
         Course course = courseOpt.get();
+        List<String> topics = QuestionBankService.normalizeTopics(request.getTopics());
+        int requested = request.getNumberOfQuestions();
 
-        // Get study materials for this course
-        List<StudyMaterial> allMaterials = studyMaterialService.getMaterialsByCourse(request.getCourseId());
+        List<McqQuestion> questions = new ArrayList<>(mcqMetricsService.time(McqMetricsService.BANK_SAMPLE,
+                () -> questionBankService.sampleUnseen(course.getId(), topics, userEmail, requested)));
+        System.out.println("Served " + questions.size() + " of " + requested + " questions from the bank");
 
-        // Filter materials to find previous year papers
-        List<StudyMaterial> previousYearPapers = allMaterials.stream()
-                .filter(material -> material.getFileName() != null &&
-                        material.getFileName().startsWith("previous-year-paper"))
-                .collect(Collectors.toList());
+        int shortfall = requested - questions.size();
+        if (shortfall > 0) {
+            try {
+                questions.addAll(generateShared(course, request.getTopics(), topics, shortfall, userEmail));
+            } catch (ResilientChatClient.ModelUnavailableException e) {
+                questions.addAll(fallbackFromBank(course, topics, questions, userEmail, shortfall, e));
+                return questions;
+            }
+        }
 
-        System.out.println("Found " + previousYearPapers.size() + " previous year papers");
+        refillIfLow(course, request.getTopics(), topics, userEmail);
+        return questions;
+    }
 
-        // Extract content from the previous year papers
-        String previousPapersContent = "";
-        if (!previousYearPapers.isEmpty()) {
-            previousPapersContent = extractContentFromPreviousPapers(previousYearPapers);
+    /**
+     * While the model is unavailable, tops up with banked questions the user
+     * may have seen before; fails only if the bank has nothing to offer
+     */
+    private List<McqQuestion> fallbackFromBank(Course course, List<String> topics, List<McqQuestion> alreadyServed,
+                                               String userEmail, int count, RuntimeException cause) {
+        Set<String> exclude = alreadyServed.stream().map(McqQuestion::getId).collect(Collectors.toSet());
+        List<McqQuestion> fallback = questionBankService.sampleAny(course.getId(), topics, exclude, userEmail, count);
+        if (fallback.isEmpty() && alreadyServed.isEmpty()) {
+            throw cause;
         }
+        System.err.println("Model unavailable (" + cause.getMessage() + "), served "
+                + fallback.size() + " previously seen questions from the bank");
+        return fallback;
+    }
 
-        String systemMessage = createSystemPrompt(
-                course.getCourseName(),
-                course.getCourseCode(),
-                String.join(", ", request.getTopics()),
-                request.getNumberOfQuestions(),
-                !previousYearPapers.isEmpty(),
-                previousPapersContent
-        );
-
-        UserMessage userMessage = new UserMessage("Generate MCQs according to the requirements above, focusing on the specified topics: "
-                + String.join(", ", request.getTopics()));
+    /**
+     * Generates and banks questions, sharing one model call between
+     * identical concurrent requests and, if enabled, reusing a result for a
+     * few seconds afterwards. Callers that did not generate the questions
+     * themselves have them recorded as served to them.
+     */
+    private List<McqQuestion> generateShared(Course course, List<String> requestTopics, List<String> topics,
+                                             int count, String userEmail) {
+        String fingerprint = course.getId() + "|" + String.join("|", topics) + "|" + count;
+
+        RecentResult recent = recentResults.get(fingerprint);
+        if (recent != null && recent.expiresAt > System.currentTimeMillis()) {
+            questionBankService.markServed(course.getId(), recent.questions, userEmail);
+            System.out.println("Reused recent questions for " + fingerprint);
+            return recent.questions;
+        }
 
-        Prompt prompt = new Prompt(List.of(
-                new org.springframework.ai.chat.messages.SystemMessage(systemMessage),
-                userMessage
-        ));
+        SingleFlight.Result<List<McqQuestion>> result = generations.execute(fingerprint, () -> {
+            List<McqQuestion> generated = generateFromModel(course, requestTopics, count);
+            List<McqQuestion> stored = questionBankService.store(course.getId(), topics, generated, userEmail);
+            if (resultCacheTtlMs > 0) {
+                recentResults.put(fingerprint, new RecentResult(stored, System.currentTimeMillis() + resultCacheTtlMs));
+            }
+            return stored;
+        });
 
-        // Call AI model to generate MCQs
-        ChatResponse response = chatModel.call(prompt);
-        String jsonResponse = response.getResult().getOutput().getText();
+        if (result.isShared()) {
+            questionBankService.markServed(course.getId(), result.getValue(), userEmail);
+            System.out.println("Joined in-flight generation for " + fingerprint);
+        }
+        return result.getValue();
+    }
 
-        // Parse JSON response
-        try {
-            // Clean the response in case it includes markdown formatting
-            String cleanedJson = cleanJsonResponse(jsonResponse);
-            System.out.println("Cleaned JSON: " + cleanedJson.substring(0, Math.min(100, cleanedJson.length())) + "...");
+    @Scheduled(fixedDelayString = "${mcq.coalesce.cleanup-interval-ms:60000}")
+    public void removeExpiredResults() {
+        long now = System.currentTimeMillis();
+        recentResults.values().removeIf(recent -> recent.expiresAt <= now);
+        lastRefill.values().removeIf(refilledAt -> now - refilledAt >= bankRefillIntervalMs);
+    }
 
-            List<McqQuestion> questions = objectMapper.readValue(
-                    jsonResponse, new TypeReference<List<McqQuestion>>() {}
-            );
+    /**
+     * Like generateMcqQuestions, but hands each question to the consumer as
+     * soon as it is available: banked questions first, then generated ones
+     * as the model streams them. Returns the number of questions delivered.
+     */
+    public int streamMcqQuestions(McqRequest request, String userEmail, Consumer<McqQuestion> onQuestion) throws IOException {
+        Optional<Course> courseOpt = mcqMetricsService.time(McqMetricsService.COURSE_LOOKUP,
+                () -> courseService.getCourseById(request.getCourseId()));
+        if (!courseOpt.isPresent()) {
+            throw new RuntimeException("Course not found");
+        }
 
-            // Limit to requested number of questions
-            if (questions.size() > request.getNumberOfQuestions()) {
-                return questions.subList(0, request.getNumberOfQuestions());
+        Course course = courseOpt.get();
+        List<String> topics = QuestionBankService.normalizeTopics(request.getTopics());
+        int requested = request.getNumberOfQuestions();
+
+        List<McqQuestion> banked = mcqMetricsService.time(McqMetricsService.BANK_SAMPLE,
+                () -> questionBankService.sampleUnseen(course.getId(), topics, userEmail, requested));
+        banked.forEach(onQuestion);
+
+        int shortfall = requested - banked.size();
+        List<McqQuestion> generated = new ArrayList<>();
+        if (shortfall > 0) {
+            // Each question is banked as it completes, so it reaches the client with its id
+            IncrementalMcqParser parser = new IncrementalMcqParser(objectMapper, question -> {
+                if (generated.size() < shortfall && !questionSimilarityService.isDuplicate(course.getId(), question)) {
+                    McqQuestion stored = questionBankService.store(course.getId(), topics, List.of(question), userEmail).get(0);
+                    generated.add(stored);
+                    onQuestion.accept(stored);
+                }
+            });
+
+            String papersContent = previousPapersContent(course, request.getTopics());
+            Prompt prompt = mcqMetricsService.time(McqMetricsService.PROMPT_BUILD,
+                    () -> buildPrompt(course, request.getTopics(), shortfall, papersContent));
+            // Usage is reported on the last chunk, if the provider reports it at all;
+            // the text received is kept to estimate it otherwise
+            ChatResponse lastChunk = null;
+            StringBuilder received = new StringBuilder();
+            long streamStart = System.nanoTime();
+            // Chunks are consumed on this thread, not the HTTP client's event loop:
+            // banking a question and sending it to the client both block.
+            // Closing the stream cancels the model call.
+            try (Stream<ChatResponse> chunks = chatClient.stream(prompt).toStream()) {
+                Iterator<ChatResponse> it = chunks.iterator();
+                // Stop once the array is closed or enough questions arrived
+                while (!parser.isComplete() && generated.size() < shortfall && it.hasNext()) {
+                    ChatResponse chunk = it.next();
+                    lastChunk = chunk;
+                    try {
+                        if (chunk.getResult() != null && chunk.getResult().getOutput() != null) {
+                            String text = chunk.getResult().getOutput().getText();
+                            if (text != null) {
+                                received.append(text);
+                            }
+                            parser.feed(text);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            } catch (UncheckedIOException e) {
+                // The client went away
+                throw e;
+            } catch (RuntimeException e) {
+                System.err.println("Model stream failed after " + generated.size() + " questions: " + e.getMessage());
+            } finally {
+                mcqMetricsService.record(McqMetricsService.MODEL_STREAM, System.nanoTime() - streamStart);
+                mcqMetricsService.recordStreamUsage(course.getId(), lastChunk, prompt.getContents(), received.toString());
             }
 
-            return questions;
-        } catch (JsonProcessingException e) {
-            System.err.println("Failed to parse AI response: " + e.getMessage());
-            System.err.println("Original response: " + jsonResponse);
-            throw new RuntimeException("Failed to parse AI response: " + e.getMessage() +
-                    "\nPlease try again with different topics.");        }
+            // Re-request only what the stream failed to deliver
+            int missing = shortfall - generated.size();
+            if (missing > 0) {
+                System.err.println("Stream delivered " + generated.size() + " of " + shortfall + " questions, requesting " + missing + " more");
+                List<McqQuestion> delivered = new ArrayList<>(banked);
+                delivered.addAll(generated);
+                try {
+                    List<McqQuestion> followUp = callModel(course, request.getTopics(), missing, papersContent);
+                    for (McqQuestion question : questionBankService.store(course.getId(), topics, followUp, userEmail)) {
+                        generated.add(question);
+                        onQuestion.accept(question);
+                    }
+                } catch (ResilientChatClient.ModelUnavailableException e) {
+                    for (McqQuestion question : fallbackFromBank(course, topics, delivered, userEmail, missing, e)) {
+                        generated.add(question);
+                        onQuestion.accept(question);
+                    }
+                } catch (RuntimeException e) {
+                    if (delivered.isEmpty()) {
+                        throw e;
+                    }
+                    System.err.println("Follow-up request failed, delivering " + generated.size() + " generated questions: " + e.getMessage());
+                }
+            }
+        }
 
+        refillIfLow(course, request.getTopics(), topics, userEmail);
+        return banked.size() + generated.size();
+    }
 
+    /**
+     * Tops up the bank when the user is running out of unseen questions. Each
+     * course and topics is refilled at most once per interval, however many
+     * users run low, so the bank doesn't grow with every active student.
+     */
+    private void refillIfLow(Course course, List<String> requestTopics, List<String> topics, String userEmail) {
+        String key = course.getId() + "|" + String.join("|", topics);
+        Long last = lastRefill.get(key);
+        if (last != null && System.currentTimeMillis() - last < bankRefillIntervalMs) {
+            return;
+        }
+        if (questionBankService.countUnseen(course.getId(), topics, userEmail) >= bankLowWatermark) {
+            return;
+        }
+        if (!refilling.add(key)) {
+            return;
+        }
+        refillExecutor.submit(() -> {
+            try {
+                List<McqQuestion> generated = generateFromModel(course, requestTopics, bankRefillBatch);
+                questionBankService.store(course.getId(), topics, generated, null);
+                System.out.println("Refilled question bank with " + generated.size() + " questions for " + key);
+            } catch (Exception e) {
+                System.err.println("Question bank refill failed for " + key + ": " + e.getMessage());
+            } finally {
+                lastRefill.put(key, System.currentTimeMillis());
+                refilling.remove(key);
+            }
+        });
     }
-    private String cleanJsonResponse(String response) {
-        // Look for the JSON array in the response
-        int jsonStart = response.indexOf('[');
-        int jsonEnd = response.lastIndexOf(']');
-
-        if (jsonStart >= 0 && jsonEnd >= 0 && jsonEnd > jsonStart) {
-            // Extract just the JSON array part
-            return response.substring(jsonStart, jsonEnd + 1);
+
+    /**
+     * Generates questions with the model. Large requests are split into
+     * chunks by topic or by count that run in parallel, each retried on its
+     * own if it fails, and the results are merged without near-duplicates.
+     */
+    private List<McqQuestion> generateFromModel(Course course, List<String> requestTopics, int numberOfQuestions) {
+        // The paper context is built once and shared by every chunk
+        String papersContent = previousPapersContent(course, requestTopics);
+
+        List<FanOutChunk> chunks = planChunks(requestTopics, numberOfQuestions);
+        if (chunks.size() == 1) {
+            return callModel(course, requestTopics, numberOfQuestions, papersContent);
         }
 
-        // If we can't find a JSON array, try to extract from markdown code blocks
-        if (response.contains("```")) {
-            // Find the content between the code block markers
-            int codeStart = response.indexOf("```") + 3;
-            // Skip the language identifier if present (e.g., ```json)
-            if (response.substring(codeStart).startsWith("json")) {
-                codeStart = response.indexOf("\n", codeStart) + 1;
-            } else {
-                // If there's no language identifier, just skip the backticks
-                codeStart = response.indexOf("\n", codeStart - 3) + 1;
+        System.out.println("Fanning out " + numberOfQuestions + " questions into " + chunks.size() + " chunks");
+        Semaphore permits = new Semaphore(Math.max(1, fanOutParallelism));
+        List<Future<List<McqQuestion>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (FanOutChunk chunk : chunks) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return callModelWithRetry(course, chunk.topics, chunk.count, papersContent);
+                    } finally {
+                        permits.release();
+                    }
+                }));
             }
+        }
 
-            int codeEnd = response.lastIndexOf("```");
+        List<McqQuestion> merged = new ArrayList<>();
+        RuntimeException lastFailure = null;
+        for (Future<List<McqQuestion>> future : futures) {
+            try {
+                merged.addAll(future.get());
+            } catch (ExecutionException e) {
+                lastFailure = e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while generating questions");
+            }
+        }
+        if (merged.isEmpty() && lastFailure != null) {
+            throw lastFailure;
+        }
 
-            if (codeStart < codeEnd) {
-                // Extract the code block content
-                String codeBlock = response.substring(codeStart, codeEnd).trim();
+        List<McqQuestion> distinct = questionSimilarityService.distinct(course.getId(), merged);
+        return distinct.size() > numberOfQuestions ? distinct.subList(0, numberOfQuestions) : distinct;
+    }
 
-                // Now look for the JSON array within the code block
-                jsonStart = codeBlock.indexOf('[');
-                jsonEnd = codeBlock.lastIndexOf(']');
+    // One chunk per chunk-size questions; topics are spread over the chunks
+    // when there are enough of them, otherwise every chunk covers all topics
+    private List<FanOutChunk> planChunks(List<String> topics, int numberOfQuestions) {
+        int chunkCount = fanOutChunkSize > 0 ? (numberOfQuestions + fanOutChunkSize - 1) / fanOutChunkSize : 1;
+        if (!fanOutEnabled || chunkCount <= 1) {
+            return List.of(new FanOutChunk(topics, numberOfQuestions));
+        }
 
-                if (jsonStart >= 0 && jsonEnd >= 0 && jsonEnd > jsonStart) {
-                    return codeBlock.substring(jsonStart, jsonEnd + 1);
+        List<FanOutChunk> chunks = new ArrayList<>();
+        for (int i = 0; i < chunkCount; i++) {
+            int count = numberOfQuestions / chunkCount + (i < numberOfQuestions % chunkCount ? 1 : 0);
+            List<String> chunkTopics = topics;
+            if (topics.size() >= chunkCount) {
+                chunkTopics = new ArrayList<>();
+                for (int t = i; t < topics.size(); t += chunkCount) {
+                    chunkTopics.add(topics.get(t));
                 }
+            }
+            chunks.add(new FanOutChunk(chunkTopics, count));
+        }
+        return chunks;
+    }
 
-                // If we couldn't find a JSON array, return the whole code block
-                return codeBlock;
+    private List<McqQuestion> callModelWithRetry(Course course, List<String> topics, int count, String papersContent) {
+        RuntimeException failure = null;
+        for (int attempt = 1; attempt <= fanOutMaxAttempts; attempt++) {
+            try {
+                return callModel(course, topics, count, papersContent);
+            } catch (ResilientChatClient.ModelUnavailableException e) {
+                // Already past its deadline or rejected by the breaker; retrying only adds load
+                throw e;
+            } catch (RuntimeException e) {
+                failure = e;
+                System.err.println("Chunk " + topics + " attempt " + attempt + " failed: " + e.getMessage());
             }
         }
+        throw failure;
+    }
+
+    /**
+     * Asks the model for questions and keeps every valid one it returns, even
+     * from truncated or partly malformed output, unless it nearly repeats a
+     * question the course already has. Only the missing count is requested
+     * again, up to mcq.salvage.max-followups times.
+     */
+    private List<McqQuestion> callModel(Course course, List<String> requestTopics, int numberOfQuestions, String papersContent) {
+        List<McqQuestion> questions = new ArrayList<>();
+        int missing = numberOfQuestions;
+
+        for (int round = 0; round <= salvageMaxFollowups && missing > 0; round++) {
+            int count = missing;
+            Prompt prompt = mcqMetricsService.time(McqMetricsService.PROMPT_BUILD,
+                    () -> buildPrompt(course, requestTopics, count, papersContent));
+
+            // Call AI model to generate MCQs
+            ChatResponse response;
+            try {
+                // Losing hedges and calls past their deadline are still billed
+                response = mcqMetricsService.time(McqMetricsService.MODEL_CALL, () -> chatClient.call(prompt,
+                        discarded -> mcqMetricsService.recordUsage(course.getId(), discarded)));
+            } catch (ResilientChatClient.ModelUnavailableException e) {
+                // Keep what earlier rounds produced rather than failing the whole request
+                if (questions.isEmpty()) {
+                    throw e;
+                }
+                System.err.println("Follow-up request skipped: " + e.getMessage());
+                break;
+            }
+            mcqMetricsService.recordUsage(course.getId(), response);
+            String jsonResponse = response.getResult().getOutput().getText();
+
+            List<McqQuestion> salvaged = mcqMetricsService.time(McqMetricsService.PARSING, () -> salvage(jsonResponse));
+
+            // Near-repeats of banked or already accepted questions count as missing
+            List<McqQuestion> candidates = new ArrayList<>(questions);
+            candidates.addAll(salvaged);
+            List<McqQuestion> novel = questionSimilarityService.distinct(course.getId(), candidates);
+            int usable = novel.size() - questions.size();
+            questions = new ArrayList<>(novel.size() > numberOfQuestions ? novel.subList(0, numberOfQuestions) : novel);
+            missing = numberOfQuestions - questions.size();
+
+            if (missing > 0) {
+                System.err.println("Model returned " + usable + " usable questions, "
+                        + missing + " still missing");
+            }
+        }
+
+        if (questions.isEmpty()) {
+            throw new RuntimeException("Failed to parse AI response: no usable questions were returned." +
+                    "\nPlease try again with different topics.");
+        }
+        return questions;
+    }
+
+    // Complete, valid questions from the response; anything else is dropped
+    private List<McqQuestion> salvage(String response) {
+        List<McqQuestion> questions = new ArrayList<>();
+        if (response == null) {
+            return questions;
+        }
+        try {
+            IncrementalMcqParser parser = new IncrementalMcqParser(objectMapper, questions::add);
+            parser.feed(response);
+            if (parser.getRejected() > 0 || !parser.isComplete()) {
+                System.err.println("Salvaged " + parser.getEmitted() + " questions, rejected " + parser.getRejected()
+                        + (parser.isComplete() ? "" : ", output was truncated"));
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to parse AI response: " + e.getMessage());
+        }
+        return questions;
+    }
+
+    /**
+     * Relevant previous-year paper passages for the topics, or null when the
+     * course has no previous papers
+     */
+    private String previousPapersContent(Course course, List<String> requestTopics) {
+        // Get the previous year papers among this course's study materials
+        List<StudyMaterial> previousYearPapers = mcqMetricsService.time(McqMetricsService.PAPER_SELECTION,
+                () -> studyMaterialService.getMaterialsByCourse(course.getId()).stream()
+                        .filter(MaterialIndexService::isPreviousPaper)
+                        .collect(Collectors.toList()));
+
+        System.out.println("Found " + previousYearPapers.size() + " previous year papers");
 
-        // If all else fails, return the original response
-        return response;
+        if (previousYearPapers.isEmpty()) {
+            return null;
+        }
+        // Extract content from the previous year papers
+        return extractContentFromPreviousPapers(course.getId(), previousYearPapers, requestTopics);
     }
 
+    private Prompt buildPrompt(Course course, List<String> requestTopics, int numberOfQuestions, String papersContent) {
+        String systemMessage = createSystemPrompt(
+                course.getCourseName(),
+                course.getCourseCode(),
+                String.join(", ", requestTopics),
+                numberOfQuestions,
+                papersContent != null,
+                papersContent == null ? "" : papersContent
+        );
+
+        UserMessage userMessage = new UserMessage("Generate MCQs according to the requirements above, focusing on the specified topics: "
+                + String.join(", ", requestTopics));
+
+        return new Prompt(List.of(
+                new org.springframework.ai.chat.messages.SystemMessage(systemMessage),
+                userMessage
+        ));
+    }
 
     private String createSystemPrompt(String courseName, String courseCode, String topics,
                                       int numberOfQuestions, boolean hasPreviousPapers,
@@ -209,63 +583,46 @@ public class McqGenerationService {
         return prompt.toString();
     }
 
-    private String extractContentFromPreviousPapers(List<StudyMaterial> materials) {
-        StringBuilder content = new StringBuilder();
-        int totalContentLength = 0;
-        final int MAX_CONTENT_LENGTH = 10000; // Limit content to avoid exceeding AI model context limits
+    private String extractContentFromPreviousPapers(String courseId, List<StudyMaterial> materials, List<String> topics) {
+        // Skip unsupported files (docx extraction is not implemented)
+        List<StudyMaterial> supported = materials.stream()
+                .filter(materialTextService::isSupported)
+                .collect(Collectors.toList());
 
-        for (StudyMaterial material : materials) {
+        Map<StudyMaterial, String> texts = mcqMetricsService.time(McqMetricsService.EXTRACTION, () -> {
+            // Prefer the passages retrieved per topic from the chunk index
+            Map<StudyMaterial, String> retrieved = Collections.emptyMap();
             try {
-                String materialContent = "";
-                String fileType = material.getFileType().toLowerCase();
-
-                // Extract text based on file type
-                if ("pdf".equals(fileType)) {
-                    materialContent = extractTextFromPdf(material.getFilePath());
-                } else if ("txt".equals(fileType)) {
-                    materialContent = extractTextFromTxt(material.getFilePath());
-                } else if ("docx".equals(fileType)) {
-                    materialContent = "Content from Word document (extraction not implemented)";
-                    continue; // Skip unsupported files
-                } else {
-                    continue; // Skip other file types
-                }
-
-                // Add metadata and content
-                content.append("=== ").append(material.getFileName()).append(" ===\n");
-
-                // Truncate material content if it's too large
-                if (materialContent.length() > 2000) {
-                    materialContent = materialContent.substring(0, 2000) + "... (truncated)";
-                }
-
-                content.append(materialContent).append("\n\n");
-
-                totalContentLength += materialContent.length();
-
-                // Check if we've reached the content limit
-                if (totalContentLength >= MAX_CONTENT_LENGTH) {
-                    content.append("... (additional papers truncated due to length)");
-                    break;
-                }
+                retrieved = materialIndexService.retrieve(courseId, supported, topics);
             } catch (Exception e) {
-                System.err.println("Error extracting content from " + material.getFileName() + ": " + e.getMessage());
+                System.err.println("Retrieval failed, falling back to full text: " + e.getMessage());
             }
-        }
 
-        return content.toString();
+            // Papers not indexed yet are extracted in parallel; cached text comes back immediately
+            return retrieved.isEmpty() ? materialTextService.getTexts(supported) : retrieved;
+        });
+
+        // Keep only the passages most relevant to the topics, within the token budget
+        return mcqMetricsService.time(McqMetricsService.CONTEXT_BUILD, () -> mcqContextBuilder.build(texts, topics));
     }
 
-    private String extractTextFromPdf(String filePath) throws IOException {
-        Path fullPath = Paths.get(uploadDir, filePath);
-        try (PDDocument document = PDDocument.load(fullPath.toFile())) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            return stripper.getText(document);
+    private static class FanOutChunk {
+        final List<String> topics;
+        final int count;
+
+        FanOutChunk(List<String> topics, int count) {
+            this.topics = topics;
+            this.count = count;
         }
     }
 
-    private String extractTextFromTxt(String filePath) throws IOException {
-        Path fullPath = Paths.get(uploadDir, filePath);
-        return Files.readString(fullPath);
+    private static class RecentResult {
+        final List<McqQuestion> questions;
+        final long expiresAt;
+
+        RecentResult(List<McqQuestion> questions, long expiresAt) {
+            this.questions = questions;
+            this.expiresAt = expiresAt;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,256 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.dto.McqJobStatus;
+import com.CollegeResources.dto.McqJobStatus.State;
+import com.CollegeResources.dto.ServedQuestion;
+import com.CollegeResources.model.McqQuestion;
+import com.CollegeResources.model.McqRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs MCQ generation as background jobs, so long model calls never hold a
+ * servlet thread. Jobs wait in a bounded queue for one of a fixed number of
+ * workers; each user may have only a few unfinished jobs at a time. Finished
+ * jobs are kept in memory for a while for polling, then dropped.
+ */
+@Service
+public class McqJobService {
+
+    private final McqGenerationService mcqGenerationService;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    @Value("${mcq.jobs.concurrency:4}")
+    private int concurrency;
+
+    @Value("${mcq.jobs.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${mcq.jobs.per-user-limit:2}")
+    private int perUserLimit;
+
+    @Value("${mcq.jobs.retention-ms:900000}")
+    private long retentionMs;
+
+    private ThreadPoolExecutor executor;
+    private Counter rejected;
+
+    public McqJobService(McqGenerationService mcqGenerationService, MeterRegistry meterRegistry) {
+        this.mcqGenerationService = mcqGenerationService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofVirtual().name("mcq-job-", 0).factory());
+
+        Gauge.builder("mcq.jobs.queue.depth", executor, e -> e.getQueue().size())
+                .description("MCQ jobs waiting for a worker").register(meterRegistry);
+        Gauge.builder("mcq.jobs.running", executor, ThreadPoolExecutor::getActiveCount)
+                .description("MCQ jobs being generated").register(meterRegistry);
+        rejected = Counter.builder("mcq.jobs.rejected")
+                .description("MCQ jobs refused because the queue or a user limit was full").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues a generation job and returns its id immediately
+     */
+    public String submit(McqRequest request, String userEmail) {
+        Job job = new Job(UUID.randomUUID().toString(), userEmail);
+
+        // Check and register under one lock so concurrent submits cannot both pass the limit
+        synchronized (this) {
+            long unfinished = jobs.values().stream()
+                    .filter(j -> Objects.equals(j.userEmail, userEmail) && !j.state.isFinished())
+                    .count();
+            if (unfinished >= perUserLimit) {
+                rejected.increment();
+                throw new JobLimitException("You already have " + unfinished + " MCQ jobs in progress");
+            }
+            jobs.put(job.id, job);
+        }
+
+        try {
+            job.future = executor.submit(() -> run(job, request));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            rejected.increment();
+            throw new QueueFullException("Too many MCQ jobs are queued, try again shortly");
+        }
+        return job.id;
+    }
+
+    /**
+     * Returns the job if it exists and belongs to the user
+     */
+    public Optional<McqJobStatus> getStatus(String jobId, String userEmail) {
+        return find(jobId, userEmail).map(Job::toStatus);
+    }
+
+    /**
+     * Cancels a queued or running job; returns false if the job is unknown
+     */
+    public boolean cancel(String jobId, String userEmail) {
+        Optional<Job> job = find(jobId, userEmail);
+        if (job.isEmpty()) {
+            return false;
+        }
+        // A job cancelled before its future is set simply never starts
+        Future<?> future = job.get().future;
+        if (job.get().finish(State.CANCELLED, null, null) && future != null) {
+            future.cancel(true);
+            // Drop it from the queue now rather than when a worker reaches it
+            executor.purge();
+        }
+        return true;
+    }
+
+    /**
+     * Subscribes to the job's state changes; the emitter receives a "status"
+     * event per change and completes when the job finishes
+     */
+    public Optional<SseEmitter> subscribe(String jobId, String userEmail, long timeoutMs) {
+        return find(jobId, userEmail).map(job -> job.subscribe(new SseEmitter(timeoutMs)));
+    }
+
+    @Scheduled(fixedDelayString = "${mcq.jobs.cleanup-interval-ms:60000}")
+    public void removeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(retentionMs));
+        jobs.values().removeIf(job -> job.state.isFinished() && job.finishedAt.isBefore(cutoff));
+    }
+
+    private Optional<Job> find(String jobId, String userEmail) {
+        Job job = jobs.get(jobId);
+        if (job == null || !Objects.equals(job.userEmail, userEmail)) {
+            return Optional.empty();
+        }
+        return Optional.of(job);
+    }
+
+    private void run(Job job, McqRequest request) {
+        if (!job.start()) {
+            return;
+        }
+        try {
+            job.finish(State.COMPLETED, mcqGenerationService.generateMcqQuestions(request, job.userEmail), null);
+        } catch (Exception e) {
+            System.err.println("MCQ job " + job.id + " failed: " + e.getMessage());
+            job.finish(State.FAILED, null, e.getMessage());
+        }
+    }
+
+    private static class Job {
+        final String id;
+        final String userEmail;
+        final LocalDateTime submittedAt = LocalDateTime.now();
+        final List<SseEmitter> subscribers = new ArrayList<>();
+
+        volatile State state = State.QUEUED;
+        volatile LocalDateTime finishedAt;
+        List<McqQuestion> questions;
+        String error;
+        volatile Future<?> future;
+
+        Job(String id, String userEmail) {
+            this.id = id;
+            this.userEmail = userEmail;
+        }
+
+        synchronized boolean start() {
+            if (state != State.QUEUED) {
+                return false;
+            }
+            state = State.RUNNING;
+            publish(false);
+            return true;
+        }
+
+        // Only the first transition to a finished state wins
+        synchronized boolean finish(State finalState, List<McqQuestion> questions, String error) {
+            if (state.isFinished()) {
+                return false;
+            }
+            this.state = finalState;
+            this.questions = questions;
+            this.error = error;
+            this.finishedAt = LocalDateTime.now();
+            publish(true);
+            return true;
+        }
+
+        synchronized SseEmitter subscribe(SseEmitter emitter) {
+            try {
+                emitter.send(SseEmitter.event().name("status").data(toStatus()));
+                if (state.isFinished()) {
+                    emitter.complete();
+                    return emitter;
+                }
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+                return emitter;
+            }
+            subscribers.add(emitter);
+            emitter.onCompletion(() -> unsubscribe(emitter));
+            emitter.onTimeout(() -> unsubscribe(emitter));
+            return emitter;
+        }
+
+        synchronized void unsubscribe(SseEmitter emitter) {
+            subscribers.remove(emitter);
+        }
+
+        synchronized McqJobStatus toStatus() {
+            return new McqJobStatus(id, state, questions == null ? null : ServedQuestion.of(questions),
+                    error, submittedAt, finishedAt);
+        }
+
+        private void publish(boolean last) {
+            McqJobStatus status = toStatus();
+            for (SseEmitter emitter : new ArrayList<>(subscribers)) {
+                try {
+                    emitter.send(SseEmitter.event().name("status").data(status));
+                    if (last) {
+                        emitter.complete();
+                    }
+                } catch (Exception e) {
+                    subscribers.remove(emitter);
+                }
+            }
+            if (last) {
+                subscribers.clear();
+            }
+        }
+    }
+
+    public static class JobLimitException extends RuntimeException {
+        public JobLimitException(String message) {
+            super(message);
+        }
+    }
+
+    public static class QueueFullException extends RuntimeException {
+        public QueueFullException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.dto.CourseCost;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Metrics for the MCQ pipeline: a latency histogram per phase (published
+ * as mcq.phase.duration), token usage per model call, and an estimated cost
+ * accumulated per course from configured per-1k-token prices. The meters
+ * are registered with the application's MeterRegistry; the actuator only
+ * serves them over HTTP if management.endpoints.web.exposure.include lists
+ * metrics.
+ */
+@Service
+public class McqMetricsService {
+
+    public static final String COURSE_LOOKUP = "course_lookup";
+    public static final String BANK_SAMPLE = "bank_sample";
+    public static final String PAPER_SELECTION = "paper_selection";
+    public static final String EXTRACTION = "extraction";
+    public static final String CONTEXT_BUILD = "context_build";
+    public static final String PROMPT_BUILD = "prompt_build";
+    public static final String MODEL_CALL = "model_call";
+    public static final String MODEL_STREAM = "model_stream";
+    public static final String PARSING = "parsing";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CourseUsage> usageByCourse = new ConcurrentHashMap<>();
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
+    @Value("${mcq.cost.prompt-per-1k:0.00015}")
+    private double promptCostPer1k;
+
+    @Value("${mcq.cost.completion-per-1k:0.0006}")
+    private double completionCostPer1k;
+
+    public McqMetricsService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs the phase and records how long it took, whether or not it failed
+     */
+    public <T> T time(String phase, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    public void record(String phase, long nanos) {
+        phaseTimer(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records token usage reported in the response metadata, if any
+     */
+    public void recordUsage(String courseId, ChatResponse response) {
+        if (response == null || response.getMetadata() == null || response.getMetadata().getUsage() == null) {
+            return;
+        }
+        Usage usage = response.getMetadata().getUsage();
+        long promptTokens = toLong(usage.getPromptTokens());
+        long totalTokens = toLong(usage.getTotalTokens());
+        if (totalTokens == 0) {
+            return;
+        }
+        record(courseId, promptTokens, Math.max(0, totalTokens - promptTokens));
+    }
+
+    /**
+     * Records usage of a streamed call. Usage arrives on the final chunk
+     * only, and a stream stopped early never gets there, so without it the
+     * tokens are estimated from the prompt and the text received.
+     */
+    public void recordStreamUsage(String courseId, ChatResponse lastChunk, String prompt, String completion) {
+        if (hasUsage(lastChunk)) {
+            recordUsage(courseId, lastChunk);
+            return;
+        }
+        record(courseId, tokenCountEstimator.estimate(prompt), tokenCountEstimator.estimate(completion));
+    }
+
+    private void record(String courseId, long promptTokens, long completionTokens) {
+        tokenSummary("prompt").record(promptTokens);
+        tokenSummary("completion").record(completionTokens);
+
+        double cost = promptTokens / 1000.0 * promptCostPer1k + completionTokens / 1000.0 * completionCostPer1k;
+        meterRegistry.counter("mcq.model.cost", "course", courseId).increment(cost);
+
+        CourseUsage course = usageByCourse.computeIfAbsent(courseId, id -> new CourseUsage());
+        course.calls.increment();
+        course.promptTokens.add(promptTokens);
+        course.completionTokens.add(completionTokens);
+        course.cost.add(cost);
+    }
+
+    /**
+     * Accumulated usage per course, most expensive first
+     */
+    public List<CourseCost> getCourseCosts() {
+        return usageByCourse.entrySet().stream()
+                .map(entry -> new CourseCost(entry.getKey(),
+                        entry.getValue().calls.sum(),
+                        entry.getValue().promptTokens.sum(),
+                        entry.getValue().completionTokens.sum(),
+                        entry.getValue().cost.sum()))
+                .sorted(Comparator.comparingDouble(CourseCost::getEstimatedCost).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private Timer phaseTimer(String phase) {
+        return Timer.builder("mcq.phase.duration")
+                .description("Duration of each MCQ generation phase")
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary tokenSummary(String type) {
+        return DistributionSummary.builder("mcq.model.tokens")
+                .description("Tokens per model call")
+                .tag("type", type)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static boolean hasUsage(ChatResponse response) {
+        return response != null && response.getMetadata() != null && response.getMetadata().getUsage() != null
+                && toLong(response.getMetadata().getUsage().getTotalTokens()) > 0;
+    }
+
+    private static long toLong(Number value) {
+        return value == null ? 0 : value.longValue();
+    }
+
+    private static class CourseUsage {
+        final LongAdder calls = new LongAdder();
+        final LongAdder promptTokens = new LongAdder();
+        final LongAdder completionTokens = new LongAdder();
+        final DoubleAdder cost = new DoubleAdder();
+    }
+}
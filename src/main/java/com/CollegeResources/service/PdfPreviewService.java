@@ -0,0 +1,303 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.model.StudyMaterial;
+import com.CollegeResources.storage.BlobStorage;
+import jakarta.annotation.PostConstruct;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * Renders single PDF pages to PNG so clients can preview a material without
+ * downloading the whole file. Rendered pages are cached on disk by
+ * (material, page, width) and the number of concurrent renders is bounded.
+ * The cache is trimmed to a size cap, least recently used pages first, and
+ * each material's page count is cached so bad page numbers fail without a
+ * download.
+ */
+@Service
+public class PdfPreviewService {
+
+    // Requested widths snap to these so the cache stays small
+    private static final int[] WIDTHS = {160, 320, 480, 640, 960, 1280, 1600};
+    public static final int THUMBNAIL_WIDTH = 320;
+
+    private final StudyMaterialService studyMaterialService;
+    private final BlobStorage blobStorage;
+
+    // Concurrent requests for the same page share one render
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService thumbnailExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private Semaphore renderPermits;
+
+    @Value("${materials.preview.cache-dir:preview-cache}")
+    private String cacheDir;
+
+    @Value("${materials.preview.max-concurrent-renders:2}")
+    private int maxConcurrentRenders;
+
+    @Value("${materials.preview.render-timeout-seconds:30}")
+    private long renderTimeoutSeconds;
+
+    @Value("${materials.preview.cache-max-bytes:1073741824}")
+    private long cacheMaxBytes;
+
+    public PdfPreviewService(StudyMaterialService studyMaterialService, BlobStorage blobStorage) {
+        this.studyMaterialService = studyMaterialService;
+        this.blobStorage = blobStorage;
+    }
+
+    @PostConstruct
+    public void init() {
+        renderPermits = new Semaphore(Math.max(1, maxConcurrentRenders));
+    }
+
+    public boolean isPreviewable(StudyMaterial material) {
+        return "pdf".equalsIgnoreCase(material.getFileType());
+    }
+
+    /**
+     * Snaps a requested width to the nearest supported width at or above it
+     */
+    public int normalizeWidth(int requested) {
+        for (int width : WIDTHS) {
+            if (width >= requested) {
+                return width;
+            }
+        }
+        return WIDTHS[WIDTHS.length - 1];
+    }
+
+    /**
+     * Returns the cached PNG for a page, rendering it first if needed.
+     * Page numbers start at 1.
+     */
+    public Path getPage(StudyMaterial material, int pageNumber, int width) throws IOException {
+        int normalizedWidth = normalizeWidth(width);
+        Path target = cachePath(material.getId(), pageNumber, normalizedWidth);
+        if (Files.exists(target)) {
+            touch(target);
+            return target;
+        }
+
+        Integer pageCount = cachedPageCount(material.getId());
+        if (pageCount != null) {
+            checkRange(pageNumber, pageCount);
+        }
+
+        String cacheKey = material.getId() + ":" + pageNumber + ":" + normalizedWidth;
+        CompletableFuture<Path> future = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(cacheKey, future);
+        if (existing != null) {
+            return join(existing);
+        }
+
+        try {
+            future.complete(render(material, pageNumber, normalizedWidth, target));
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        } finally {
+            inFlight.remove(cacheKey);
+        }
+        return join(future);
+    }
+
+    /**
+     * Renders the first page in the background so listings have a thumbnail ready
+     */
+    public void warmThumbnail(StudyMaterial material) {
+        if (!isPreviewable(material)) {
+            return;
+        }
+        thumbnailExecutor.submit(() -> {
+            try {
+                getPage(material, 1, THUMBNAIL_WIDTH);
+            } catch (Exception e) {
+                System.err.println("Thumbnail generation failed for " + material.getId() + ": " + e.getMessage());
+            }
+        });
+    }
+
+    private Path render(StudyMaterial material, int pageNumber, int width, Path target) throws IOException {
+        try {
+            if (!renderPermits.tryAcquire(renderTimeoutSeconds, TimeUnit.SECONDS)) {
+                throw new PreviewBusyException("Too many previews are being rendered, try again shortly");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting to render");
+        }
+
+        try (InputStream in = blobStorage.get(studyMaterialService.getObjectKey(material));
+             // Spill the parsed document to a scratch file instead of the heap
+             PDDocument document = PDDocument.load(in, MemoryUsageSetting.setupTempFileOnly())) {
+
+            Files.createDirectories(target.getParent());
+            Files.writeString(pageCountPath(material.getId()), Integer.toString(document.getNumberOfPages()));
+            checkRange(pageNumber, document.getNumberOfPages());
+
+            PDPage page = document.getPage(pageNumber - 1);
+            float scale = width / page.getCropBox().getWidth();
+            BufferedImage image = new PDFRenderer(document).renderImage(pageNumber - 1, scale, ImageType.RGB);
+
+            // Write to a temp name and move, so readers never see a partial file
+            Path temp = Files.createTempFile(target.getParent(), "render", ".tmp");
+            try {
+                ImageIO.write(image, "png", temp.toFile());
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            return target;
+        } finally {
+            renderPermits.release();
+        }
+    }
+
+    /**
+     * Deletes every cached page of the material
+     */
+    public void evict(String materialId) {
+        Path dir = Paths.get(cacheDir, materialId);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            System.err.println("Could not evict previews of " + materialId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the least recently used pages until the cache fits its size cap.
+     * Cache hits bump a page's modification time, so that is the access order.
+     */
+    @Scheduled(fixedDelayString = "${materials.preview.cache-trim-interval-ms:300000}")
+    public void trimCache() {
+        Path root = Paths.get(cacheDir);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+
+        List<CachedPage> pages = new ArrayList<>();
+        long total = 0;
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".png"))::iterator) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                pages.add(new CachedPage(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                total += attributes.size();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Preview cache trim failed: " + e.getMessage());
+            return;
+        }
+
+        if (total <= cacheMaxBytes) {
+            return;
+        }
+        pages.sort(Comparator.comparingLong(page -> page.lastUsed));
+        int removed = 0;
+        for (CachedPage page : pages) {
+            if (total <= cacheMaxBytes) {
+                break;
+            }
+            deleteQuietly(page.path);
+            total -= page.size;
+            removed++;
+        }
+        System.out.println("Trimmed " + removed + " pages from the preview cache");
+    }
+
+    private Integer cachedPageCount(String materialId) {
+        try {
+            return Integer.parseInt(Files.readString(pageCountPath(materialId)).trim());
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void checkRange(int pageNumber, int pageCount) {
+        if (pageNumber < 1 || pageNumber > pageCount) {
+            throw new IllegalArgumentException("Page " + pageNumber + " out of range (1-" + pageCount + ")");
+        }
+    }
+
+    private void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // Trimmed meanwhile; the caller finds out when it reads the file
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // Left for the next trim
+        }
+    }
+
+    private Path join(CompletableFuture<Path> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private Path cachePath(String materialId, int pageNumber, int width) {
+        return Paths.get(cacheDir, materialId, "p" + pageNumber + "-w" + width + ".png");
+    }
+
+    private Path pageCountPath(String materialId) {
+        return Paths.get(cacheDir, materialId, "pages");
+    }
+
+    private static class CachedPage {
+        final Path path;
+        final long size;
+        final long lastUsed;
+
+        CachedPage(Path path, long size, long lastUsed) {
+            this.path = path;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    public static class PreviewBusyException extends RuntimeException {
+        public PreviewBusyException(String message) {
+            super(message);
+        }
+    }
+}
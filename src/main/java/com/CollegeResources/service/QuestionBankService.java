@@ -0,0 +1,218 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.model.BankedQuestion;
+import com.CollegeResources.model.McqQuestion;
+import com.CollegeResources.model.ServedRecord;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Generated MCQs indexed by course and topic. A question generated for some
+ * topics can be served to any request whose topics include all of them.
+ * Who has seen which question is kept in its own collection, so banked
+ * questions don't grow with every user who is served them.
+ */
+@Service
+public class QuestionBankService {
+
+    private final MongoTemplate mongoTemplate;
+    private final QuestionSimilarityService questionSimilarityService;
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    public QuestionBankService(MongoTemplate mongoTemplate, QuestionSimilarityService questionSimilarityService) {
+        this.mongoTemplate = mongoTemplate;
+        this.questionSimilarityService = questionSimilarityService;
+    }
+
+    @PostConstruct
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(BankedQuestion.class)
+                .ensureIndex(new Index().on("courseId", Sort.Direction.ASC).on("topics", Sort.Direction.ASC));
+        mongoTemplate.indexOps(ServedRecord.class)
+                .ensureIndex(new Index().on("userEmail", Sort.Direction.ASC).on("courseId", Sort.Direction.ASC));
+    }
+
+    /**
+     * Lower-cased, trimmed, de-duplicated and sorted, so equivalent topic
+     * lists compare equal
+     */
+    public static List<String> normalizeTopics(List<String> topics) {
+        return topics.stream()
+                .filter(Objects::nonNull)
+                .map(topic -> topic.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT))
+                .filter(topic -> !topic.isEmpty())
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns up to count random questions the user has not been served yet
+     * and records them as served. A null user samples from the whole bank.
+     * Questions a concurrent request of the same user claimed first are left
+     * out, so two requests never get the same question.
+     */
+    public List<McqQuestion> sampleUnseen(String courseId, List<String> topics, String userEmail, int count) {
+        Collection<String> served = userEmail == null ? List.of() : servedIds(courseId, userEmail);
+        List<McqQuestion> sampled = sample(eligible(courseId, topics, served), count);
+        if (userEmail == null) {
+            return sampled;
+        }
+
+        Set<String> claimed = claim(courseId, sampled, userEmail);
+        List<McqQuestion> questions = new ArrayList<>();
+        for (McqQuestion question : sampled) {
+            if (claimed.contains(question.getId())) {
+                questions.add(question);
+            }
+        }
+        return questions;
+    }
+
+    /**
+     * Fallback when no new questions can be generated: returns up to count
+     * random questions for the topics, seen or not, other than the excluded ids
+     */
+    public List<McqQuestion> sampleAny(String courseId, List<String> topics, Collection<String> excludeIds,
+                                       String userEmail, int count) {
+        List<McqQuestion> questions = sample(eligible(courseId, topics, excludeIds), count);
+        markServed(courseId, questions, userEmail);
+        return questions;
+    }
+
+    /**
+     * Records questions as served to the user
+     */
+    public void markServed(String courseId, List<McqQuestion> questions, String userEmail) {
+        if (userEmail != null) {
+            claim(courseId, questions, userEmail);
+        }
+    }
+
+    /**
+     * The ids among questionIds that were served to the user
+     */
+    public Set<String> servedAmong(String userEmail, Collection<String> questionIds) {
+        List<String> ids = questionIds.stream().map(id -> userEmail + "|" + id).collect(Collectors.toList());
+        return mongoTemplate.find(Query.query(Criteria.where("_id").in(ids)), ServedRecord.class).stream()
+                .map(ServedRecord::getQuestionId)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Banked questions with the given ids; unknown ids are left out
+     */
+    public List<BankedQuestion> findByIds(Collection<String> ids) {
+        return mongoTemplate.find(Query.query(Criteria.where("_id").in(ids)), BankedQuestion.class);
+    }
+
+    /**
+     * Number of questions for these topics the user has not seen
+     */
+    public long countUnseen(String courseId, List<String> topics, String userEmail) {
+        return mongoTemplate.count(new BasicQuery(eligible(courseId, topics, servedIds(courseId, userEmail))),
+                BankedQuestion.class);
+    }
+
+    /**
+     * Banks newly generated questions, optionally as already served to a
+     * user, and returns them with their bank ids set
+     */
+    public List<McqQuestion> store(String courseId, List<String> topics, List<McqQuestion> questions, String servedTo) {
+        List<BankedQuestion> banked = new ArrayList<>();
+        for (McqQuestion question : questions) {
+            banked.add(new BankedQuestion(courseId, topics, question));
+        }
+
+        List<McqQuestion> stored = new ArrayList<>();
+        for (BankedQuestion entry : mongoTemplate.insertAll(banked)) {
+            stored.add(withId(entry));
+        }
+        markServed(courseId, stored, servedTo);
+        questionSimilarityService.record(courseId, stored);
+        return stored;
+    }
+
+    private List<McqQuestion> sample(Document filter, int count) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                context -> new Document("$match", filter),
+                Aggregation.sample(count));
+
+        List<McqQuestion> questions = new ArrayList<>();
+        for (BankedQuestion banked : mongoTemplate.aggregate(aggregation, BankedQuestion.class, BankedQuestion.class)
+                .getMappedResults()) {
+            questions.add(withId(banked));
+        }
+        return questions;
+    }
+
+    /**
+     * Inserts a served record per question and returns the ids this call
+     * inserted; the others had already been served to the user
+     */
+    private Set<String> claim(String courseId, List<McqQuestion> questions, String userEmail) {
+        Set<String> claimed = new HashSet<>();
+        if (questions.isEmpty()) {
+            return claimed;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ServedRecord.class);
+        for (McqQuestion question : questions) {
+            claimed.add(question.getId());
+            bulk.insert(new ServedRecord(userEmail, question.getId(), courseId));
+        }
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+                claimed.remove(questions.get(error.getIndex()).getId());
+            }
+        }
+        return claimed;
+    }
+
+    private List<String> servedIds(String courseId, String userEmail) {
+        Query query = Query.query(Criteria.where("userEmail").is(userEmail).and("courseId").is(courseId));
+        query.fields().include("questionId");
+        return mongoTemplate.find(query, ServedRecord.class).stream()
+                .map(ServedRecord::getQuestionId)
+                .collect(Collectors.toList());
+    }
+
+    // Every topic of the question must be among the requested topics
+    private Document eligible(String courseId, List<String> topics, Collection<String> excludeIds) {
+        Document filter = new Document("courseId", courseId)
+                .append("topics", new Document("$not", new Document("$elemMatch", new Document("$nin", topics))));
+        if (!excludeIds.isEmpty()) {
+            filter.append("_id", new Document("$nin", excludeIds.stream()
+                    .map(id -> ObjectId.isValid(id) ? new ObjectId(id) : id)
+                    .collect(Collectors.toList())));
+        }
+        return filter;
+    }
+
+    private McqQuestion withId(BankedQuestion banked) {
+        McqQuestion question = banked.getQuestion();
+        question.setId(banked.getId());
+        return question;
+    }
+}
@@ -0,0 +1,159 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.model.BankedQuestion;
+import com.CollegeResources.model.McqQuestion;
+import com.CollegeResources.utils.MinHashIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a MinHash index of every banked question per course, so generated
+ * questions can be checked against all questions the course already has
+ * without comparing them one by one. A course's index is built from the
+ * question bank the first time it is needed and kept current by
+ * {@link QuestionBankService#store}.
+ */
+@Service
+public class QuestionSimilarityService {
+
+    private final MongoTemplate mongoTemplate;
+    private final Map<String, MinHashIndex> indexes = new ConcurrentHashMap<>();
+
+    // Courses whose index is being read from the bank, and the questions
+    // banked meanwhile, which the read may already have passed. Both are
+    // guarded by this service's lock.
+    private final Map<String, CompletableFuture<MinHashIndex>> loading = new HashMap<>();
+    private final Map<String, List<McqQuestion>> recordedDuringLoad = new HashMap<>();
+
+    @Value("${mcq.dedup.threshold:0.8}")
+    private double threshold;
+
+    public QuestionSimilarityService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * The questions that are neither near-duplicates of a banked question
+     * for the course nor of an earlier question in the list
+     */
+    public List<McqQuestion> distinct(String courseId, List<McqQuestion> questions) {
+        MinHashIndex course = index(courseId);
+        MinHashIndex batch = new MinHashIndex();
+
+        List<McqQuestion> kept = new ArrayList<>();
+        for (McqQuestion question : questions) {
+            int[] signature = course.signature(question.getQuestion());
+            if (course.findSimilar(signature, threshold).isPresent()
+                    || batch.findSimilar(signature, threshold).isPresent()) {
+                continue;
+            }
+            batch.add(String.valueOf(kept.size()), signature);
+            kept.add(question);
+        }
+        if (kept.size() < questions.size()) {
+            System.out.println("Dropped " + (questions.size() - kept.size()) + " near-duplicate questions for course " + courseId);
+        }
+        return kept;
+    }
+
+    /**
+     * True if the question nearly matches one already banked for the course
+     */
+    public boolean isDuplicate(String courseId, McqQuestion question) {
+        MinHashIndex course = index(courseId);
+        return course.findSimilar(course.signature(question.getQuestion()), threshold).isPresent();
+    }
+
+    /**
+     * Adds newly banked questions to the course's index, if it is loaded or
+     * being loaded
+     */
+    public void record(String courseId, List<McqQuestion> questions) {
+        MinHashIndex course;
+        synchronized (this) {
+            course = indexes.get(courseId);
+            if (course == null) {
+                List<McqQuestion> recorded = recordedDuringLoad.get(courseId);
+                if (recorded != null) {
+                    recorded.addAll(questions);
+                }
+                // Otherwise built from the bank, including these, when first needed
+                return;
+            }
+        }
+        for (McqQuestion question : questions) {
+            course.add(question.getId(), course.signature(question.getQuestion()));
+        }
+    }
+
+    /**
+     * The course's index, reading it from the bank on first use. The read
+     * happens outside any lock; concurrent callers for the same course wait
+     * for it, other courses are not held up.
+     */
+    private MinHashIndex index(String courseId) {
+        MinHashIndex index = indexes.get(courseId);
+        if (index != null) {
+            return index;
+        }
+
+        CompletableFuture<MinHashIndex> future = new CompletableFuture<>();
+        CompletableFuture<MinHashIndex> existing;
+        synchronized (this) {
+            index = indexes.get(courseId);
+            if (index != null) {
+                return index;
+            }
+            existing = loading.putIfAbsent(courseId, future);
+            if (existing == null) {
+                recordedDuringLoad.put(courseId, new ArrayList<>());
+            }
+        }
+        if (existing != null) {
+            return existing.join();
+        }
+
+        try {
+            MinHashIndex loaded = load(courseId);
+            synchronized (this) {
+                // Ids the read already found are left as they are
+                for (McqQuestion question : recordedDuringLoad.remove(courseId)) {
+                    loaded.add(question.getId(), loaded.signature(question.getQuestion()));
+                }
+                indexes.put(courseId, loaded);
+                loading.remove(courseId);
+            }
+            future.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                recordedDuringLoad.remove(courseId);
+                loading.remove(courseId);
+            }
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private MinHashIndex load(String courseId) {
+        MinHashIndex index = new MinHashIndex();
+        Query query = Query.query(Criteria.where("courseId").is(courseId));
+        query.fields().include("question.question");
+        try (Stream<BankedQuestion> banked = mongoTemplate.stream(query, BankedQuestion.class)) {
+            banked.forEach(entry -> index.add(entry.getId(), index.signature(entry.getQuestion().getQuestion())));
+        }
+        System.out.println("Loaded " + index.size() + " banked questions into the similarity index for course " + courseId);
+        return index;
+    }
+}
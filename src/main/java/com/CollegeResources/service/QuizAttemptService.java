@@ -0,0 +1,287 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.dto.LeaderboardEntry;
+import com.CollegeResources.dto.QuizSubmission;
+import com.CollegeResources.model.*;
+import com.CollegeResources.utils.Leaderboard;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+
+/**
+ * Grades quiz attempts against the question bank and keeps per-course and
+ * per-course-and-batch leaderboards in memory. Graded attempts are queued
+ * and written to Mongo periodically in bounded batches; the leaderboards are
+ * rebuilt from the stored attempts at startup.
+ */
+@Service
+public class QuizAttemptService {
+
+    private final MongoTemplate mongoTemplate;
+    private final QuestionBankService questionBankService;
+    private final ReviewScheduleService reviewScheduleService;
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    // Graded attempts waiting to be written, and a batch whose write failed
+    private BlockingQueue<QuizAttempt> pending;
+    private List<QuizAttempt> retry = new ArrayList<>();
+
+    // Keyed by courseId, and by courseId|batchYear
+    private final Map<String, Leaderboard> courseBoards = new ConcurrentHashMap<>();
+    private final Map<String, Leaderboard> batchBoards = new ConcurrentHashMap<>();
+
+    // Keyed by courseId|userEmail
+    private final Map<String, Progress> progress = new ConcurrentHashMap<>();
+
+    @Value("${quiz.max-answers:50}")
+    private int maxAnswers;
+
+    @Value("${quiz.attempts.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${quiz.attempts.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    public QuizAttemptService(MongoTemplate mongoTemplate, QuestionBankService questionBankService,
+                              ReviewScheduleService reviewScheduleService) {
+        this.mongoTemplate = mongoTemplate;
+        this.questionBankService = questionBankService;
+        this.reviewScheduleService = reviewScheduleService;
+    }
+
+    @PostConstruct
+    public void loadLeaderboards() {
+        pending = new LinkedBlockingQueue<>(maxPending);
+
+        // In submission order, so each question's first answer is known
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id"));
+        query.fields().include("userEmail", "userName", "batchYear", "courseId", "answers.questionId", "answers.correct");
+        int attempts = 0;
+        try (Stream<QuizAttempt> stored = mongoTemplate.stream(query, QuizAttempt.class)) {
+            Iterator<QuizAttempt> iterator = stored.iterator();
+            while (iterator.hasNext()) {
+                record(iterator.next());
+                attempts++;
+            }
+        }
+        System.out.println("Loaded leaderboards from " + attempts + " quiz attempts");
+    }
+
+    /**
+     * Grades the answers, updates the leaderboards and the user's review
+     * queue, and queues the attempt for storage. Every question must be from the course's bank and must
+     * have been served to the user.
+     */
+    public QuizAttempt submit(QuizSubmission submission, User user) {
+        List<QuizAnswer> answers = submission.getAnswers();
+        if (submission.getCourseId() == null || answers == null || answers.isEmpty()) {
+            throw new InvalidAttemptException("A course and at least one answer are required");
+        }
+        if (answers.size() > maxAnswers) {
+            throw new InvalidAttemptException("At most " + maxAnswers + " answers can be submitted at once");
+        }
+
+        Set<String> ids = new HashSet<>();
+        for (QuizAnswer answer : answers) {
+            if (answer.getQuestionId() == null || !ids.add(answer.getQuestionId())) {
+                throw new InvalidAttemptException("Each answer needs a distinct question id");
+            }
+        }
+
+        Map<String, BankedQuestion> questions = new HashMap<>();
+        for (BankedQuestion banked : questionBankService.findByIds(ids)) {
+            questions.put(banked.getId(), banked);
+        }
+        Set<String> served = questionBankService.servedAmong(user.getEmail(), ids);
+
+        List<QuizAnswer> graded = new ArrayList<>();
+        int score = 0;
+        for (QuizAnswer answer : answers) {
+            BankedQuestion banked = questions.get(answer.getQuestionId());
+            if (banked == null || !submission.getCourseId().equals(banked.getCourseId())
+                    || !served.contains(answer.getQuestionId())) {
+                throw new InvalidAttemptException("Question " + answer.getQuestionId() + " was not served to you for this course");
+            }
+            QuizAnswer result = grade(answer, banked.getQuestion());
+            if (result.isCorrect()) {
+                score++;
+            }
+            graded.add(result);
+        }
+
+        QuizAttempt attempt = new QuizAttempt();
+        attempt.setId(new ObjectId().toHexString());
+        attempt.setUserEmail(user.getEmail());
+        attempt.setUserName(user.getName());
+        attempt.setBatchYear(user.getBatchYear());
+        attempt.setCourseId(submission.getCourseId());
+        attempt.setAnswers(graded);
+        attempt.setScore(score);
+        attempt.setTotal(graded.size());
+        attempt.setSubmittedAt(LocalDateTime.now());
+
+        // Refused while the database is too far behind, before anything else changes
+        if (!pending.offer(attempt)) {
+            throw new BacklogFullException("Too many quiz attempts are waiting to be saved, try again shortly");
+        }
+        record(attempt);
+        reviewScheduleService.recordAnswers(user.getEmail(), submission.getCourseId(), graded);
+        return attempt;
+    }
+
+    public List<LeaderboardEntry> getCourseLeaderboard(String courseId, int limit) {
+        return entries(courseBoards.get(courseId), limit);
+    }
+
+    public List<LeaderboardEntry> getBatchLeaderboard(String courseId, String batchYear, int limit) {
+        return entries(batchBoards.get(courseId + "|" + batchYear), limit);
+    }
+
+    /**
+     * The user's points in the course, 0 if they have not solved anything
+     */
+    public int getPoints(String courseId, String userEmail) {
+        Leaderboard board = courseBoards.get(courseId);
+        return board == null ? 0 : board.get(userEmail).map(Leaderboard.Standing::getPoints).orElse(0);
+    }
+
+    /**
+     * Writes the attempts graded since the last flush as unordered bulk
+     * inserts. Ids are assigned at grading, so an attempt that was in fact
+     * stored by a failed try comes back as a duplicate key and is done.
+     * Attempts the database rejected are dropped; on any other failure the
+     * unwritten ones are retried before anything new is taken.
+     */
+    @Scheduled(fixedDelayString = "${quiz.attempts.flush-interval-ms:5000}")
+    @PreDestroy
+    public synchronized void flush() {
+        while (true) {
+            List<QuizAttempt> batch = retry;
+            retry = new ArrayList<>();
+            if (batch.isEmpty()) {
+                pending.drainTo(batch, flushBatchSize);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, QuizAttempt.class).insert(batch).execute();
+            } catch (BulkOperationException e) {
+                // Unordered, so only the listed documents failed
+                Set<Integer> rejected = new HashSet<>();
+                for (BulkWriteError error : e.getErrors()) {
+                    if (error.getCode() != DUPLICATE_KEY) {
+                        rejected.add(error.getIndex());
+                        System.err.println("Dropping quiz attempt " + batch.get(error.getIndex()).getId() + ": " + error.getMessage());
+                    }
+                }
+                if (e.getWriteConcernError() != null) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        if (!rejected.contains(i)) {
+                            retry.add(batch.get(i));
+                        }
+                    }
+                    System.err.println("Quiz attempts not acknowledged, will retry " + retry.size() + ": " + e.getWriteConcernError().getMessage());
+                    return;
+                }
+            } catch (RuntimeException e) {
+                retry = batch;
+                System.err.println("Failed to store " + batch.size() + " quiz attempts, will retry: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private QuizAnswer grade(QuizAnswer answer, McqQuestion question) {
+        QuizAnswer result = new QuizAnswer();
+        result.setQuestionId(answer.getQuestionId());
+        result.setSelectedOption(answer.getSelectedOption());
+
+        List<McqOption> options = question.getOptions();
+        for (int i = 0; i < options.size(); i++) {
+            if (options.get(i).isCorrect()) {
+                result.setCorrectOption(i);
+            }
+        }
+        result.setCorrect(answer.getSelectedOption() != null
+                && answer.getSelectedOption().equals(result.getCorrectOption()));
+        result.setExplanation(question.getExplanation());
+        return result;
+    }
+
+    // Folds an attempt into the user's progress and both leaderboards
+    private void record(QuizAttempt attempt) {
+        Progress progress = this.progress.computeIfAbsent(attempt.getCourseId() + "|" + attempt.getUserEmail(),
+                key -> new Progress());
+        String name = attempt.getUserName() != null ? attempt.getUserName() : attempt.getUserEmail();
+
+        // Per user, so concurrent attempts cannot publish their counts out of order
+        synchronized (progress) {
+            boolean changed = false;
+            for (QuizAnswer answer : attempt.getAnswers()) {
+                // Only a question's first answer counts: grading reveals the correct option
+                if (progress.answered.add(answer.getQuestionId()) && answer.isCorrect()) {
+                    progress.solved++;
+                    changed = true;
+                }
+            }
+            if (!changed) {
+                return;
+            }
+
+            courseBoards.computeIfAbsent(attempt.getCourseId(), id -> new Leaderboard())
+                    .update(attempt.getUserEmail(), name, progress.solved);
+            if (attempt.getBatchYear() != null) {
+                batchBoards.computeIfAbsent(attempt.getCourseId() + "|" + attempt.getBatchYear(), id -> new Leaderboard())
+                        .update(attempt.getUserEmail(), name, progress.solved);
+            }
+        }
+    }
+
+    private List<LeaderboardEntry> entries(Leaderboard board, int limit) {
+        List<LeaderboardEntry> entries = new ArrayList<>();
+        if (board == null) {
+            return entries;
+        }
+        int rank = 1;
+        for (Leaderboard.Standing standing : board.top(limit)) {
+            entries.add(new LeaderboardEntry(rank++, standing.getName(), standing.getPoints()));
+        }
+        return entries;
+    }
+
+    private static class Progress {
+        final Set<String> answered = new HashSet<>();
+        int solved;
+    }
+
+    public static class BacklogFullException extends RuntimeException {
+        public BacklogFullException(String message) {
+            super(message);
+        }
+    }
+
+    public static class InvalidAttemptException extends RuntimeException {
+        public InvalidAttemptException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.utils.CircuitBreaker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Guards every call to the chat model: a bulkhead caps concurrent calls, a
+ * circuit breaker fails fast while the provider keeps failing, each call
+ * has a deadline, and optionally a second (hedged) request is sent when the
+ * first is slower than a latency percentile of recent calls. Outcomes,
+ * latency, hedges and circuit transitions are recorded as metrics.
+ */
+@Service
+public class ResilientChatClient {
+
+    private final ChatModel chatModel;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${mcq.model.timeout-ms:90000}")
+    private long timeoutMs;
+
+    @Value("${mcq.model.max-concurrent:8}")
+    private int maxConcurrent;
+
+    @Value("${mcq.model.bulkhead-wait-ms:2000}")
+    private long bulkheadWaitMs;
+
+    @Value("${mcq.model.circuit.failure-rate:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${mcq.model.circuit.window:20}")
+    private int circuitWindow;
+
+    @Value("${mcq.model.circuit.minimum-calls:10}")
+    private int circuitMinimumCalls;
+
+    @Value("${mcq.model.circuit.open-ms:30000}")
+    private long circuitOpenMs;
+
+    @Value("${mcq.model.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    @Value("${mcq.model.hedge.percentile:0.95}")
+    private double hedgePercentile;
+
+    @Value("${mcq.model.hedge.min-samples:20}")
+    private int hedgeMinSamples;
+
+    private static final Object DISCARDED = new Object();
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Latencies of recent successful calls, for the hedging threshold
+    private final long[] recentLatencies = new long[200];
+    private int latencyCount;
+    private int latencyNext;
+
+    private CircuitBreaker circuitBreaker;
+    private Semaphore bulkhead;
+    private Timer latencyTimer;
+
+    public ResilientChatClient(ChatModel chatModel, MeterRegistry meterRegistry) {
+        this.chatModel = chatModel;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        bulkhead = new Semaphore(Math.max(1, maxConcurrent));
+        circuitBreaker = new CircuitBreaker(failureRateThreshold, circuitWindow, circuitMinimumCalls, circuitOpenMs,
+                (from, to) -> {
+                    System.out.println("Model circuit breaker " + from + " -> " + to);
+                    meterRegistry.counter("mcq.model.circuit.transitions", "from", from.name(), "to", to.name()).increment();
+                });
+
+        Gauge.builder("mcq.model.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("Model circuit breaker state: 0 closed, 1 open, 2 half-open").register(meterRegistry);
+        Gauge.builder("mcq.model.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("Model calls that can start without waiting").register(meterRegistry);
+        latencyTimer = Timer.builder("mcq.model.latency")
+                .description("Latency of successful model calls")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * Calls the model within the deadline, hedging if enabled
+     */
+    public ChatResponse call(Prompt prompt) {
+        return call(prompt, response -> {
+        });
+    }
+
+    /**
+     * Like call(prompt), but hands any response that arrives too late to be
+     * used (a losing hedge, or a call past its deadline) to onDiscarded, so
+     * its token usage can still be accounted for
+     */
+    public ChatResponse call(Prompt prompt, Consumer<ChatResponse> onDiscarded) {
+        admit();
+
+        long start = System.nanoTime();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        // Set to the response the caller takes, or to DISCARDED once it gave up
+        AtomicReference<Object> taken = new AtomicReference<>();
+        Attempt primary = submit(prompt, taken, onDiscarded);
+        Attempt hedge = null;
+
+        try {
+            ChatResponse response;
+            long hedgeAfter = hedgeDelayNanos();
+            if (hedgeAfter > 0 && hedgeAfter < timeoutNanos) {
+                try {
+                    response = primary.result.get(hedgeAfter, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException slow) {
+                    // The hedge needs its own bulkhead slot, so it never adds load beyond the cap
+                    if (bulkhead.tryAcquire()) {
+                        meterRegistry.counter("mcq.model.hedges").increment();
+                        hedge = submit(prompt, taken, onDiscarded);
+                    }
+                    CompletableFuture<ChatResponse> first = hedge == null
+                            ? primary.result : firstSuccessful(primary.result, hedge.result);
+                    first.get(timeoutNanos - (System.nanoTime() - start), TimeUnit.NANOSECONDS);
+                    // Whichever attempt claimed the call first; the other one counts as discarded
+                    response = (ChatResponse) taken.get();
+                }
+            } else {
+                response = primary.result.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            }
+
+            long elapsed = System.nanoTime() - start;
+            recordLatency(elapsed);
+            latencyTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            circuitBreaker.onSuccess();
+            outcome("success");
+            return response;
+        } catch (TimeoutException e) {
+            circuitBreaker.onFailure();
+            outcome("timeout");
+            throw new ModelUnavailableException("The model did not respond within " + timeoutMs + " ms");
+        } catch (ExecutionException e) {
+            circuitBreaker.onFailure();
+            outcome("failure");
+            Throwable cause = unwrap(e.getCause());
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            circuitBreaker.onFailure();
+            outcome("interrupted");
+            throw new ModelUnavailableException("Interrupted while waiting for the model");
+        } finally {
+            taken.compareAndSet(null, DISCARDED);
+            // Interrupts whatever is still running; each attempt releases its
+            // bulkhead slot only when its thread actually finishes
+            primary.task.cancel(true);
+            if (hedge != null) {
+                hedge.task.cancel(true);
+            }
+        }
+    }
+
+    // Runs one model call on its own virtual thread, which owns an already
+    // acquired bulkhead slot until the call returns
+    private Attempt submit(Prompt prompt, AtomicReference<Object> taken, Consumer<ChatResponse> onDiscarded) {
+        CompletableFuture<ChatResponse> result = new CompletableFuture<>();
+        try {
+            Future<?> task = executor.submit(() -> {
+                try {
+                    ChatResponse response = chatModel.call(prompt);
+                    if (!taken.compareAndSet(null, response)) {
+                        onDiscarded.accept(response);
+                    }
+                    result.complete(response);
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    bulkhead.release();
+                }
+            });
+            return new Attempt(task, result);
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            throw new ModelUnavailableException("The model client is shutting down");
+        }
+    }
+
+    /**
+     * Streams from the model. The deadline applies to the first chunk and to
+     * every gap between chunks; cancelling the stream counts as success.
+     */
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        admit();
+
+        long start = System.nanoTime();
+        AtomicBoolean settled = new AtomicBoolean();
+        return chatModel.stream(prompt)
+                .timeout(Duration.ofMillis(timeoutMs))
+                .doOnComplete(() -> settle(settled, true, start))
+                .doOnCancel(() -> settle(settled, true, start))
+                .doOnError(e -> settle(settled, false, start))
+                .doFinally(signal -> bulkhead.release());
+    }
+
+    // Takes a bulkhead slot, then asks the breaker; throws if either refuses
+    private void admit() {
+        boolean permitted;
+        try {
+            permitted = bulkhead.tryAcquire(bulkheadWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModelUnavailableException("Interrupted while waiting for the model");
+        }
+        if (!permitted) {
+            outcome("rejected_bulkhead");
+            throw new ModelUnavailableException("Too many model calls in progress, try again shortly");
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            bulkhead.release();
+            outcome("rejected_open");
+            throw new ModelUnavailableException("The model provider is unavailable, try again shortly");
+        }
+    }
+
+    private void settle(AtomicBoolean settled, boolean success, long start) {
+        if (!settled.compareAndSet(false, true)) {
+            return;
+        }
+        if (success) {
+            latencyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            circuitBreaker.onSuccess();
+            outcome("success");
+        } else {
+            circuitBreaker.onFailure();
+            outcome("failure");
+        }
+    }
+
+    private void outcome(String outcome) {
+        meterRegistry.counter("mcq.model.calls", "outcome", outcome).increment();
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        recentLatencies[latencyNext] = nanos;
+        latencyNext = (latencyNext + 1) % recentLatencies.length;
+        latencyCount = Math.min(latencyCount + 1, recentLatencies.length);
+    }
+
+    // Hedge once the call is slower than the configured percentile; -1 disables
+    private synchronized long hedgeDelayNanos() {
+        if (!hedgeEnabled || latencyCount < hedgeMinSamples) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(recentLatencies, latencyCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(hedgePercentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)];
+    }
+
+    // Completes with the first success, or fails once both have failed
+    private static CompletableFuture<ChatResponse> firstSuccessful(CompletableFuture<ChatResponse> a,
+                                                                   CompletableFuture<ChatResponse> b) {
+        CompletableFuture<ChatResponse> result = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        a.whenComplete((response, error) -> {
+            if (error == null) {
+                result.complete(response);
+            } else if (failures.incrementAndGet() == 2) {
+                result.completeExceptionally(unwrap(error));
+            }
+        });
+        b.whenComplete((response, error) -> {
+            if (error == null) {
+                result.complete(response);
+            } else if (failures.incrementAndGet() == 2) {
+                result.completeExceptionally(unwrap(error));
+            }
+        });
+        return result;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private static class Attempt {
+        final Future<?> task;
+        final CompletableFuture<ChatResponse> result;
+
+        Attempt(Future<?> task, CompletableFuture<ChatResponse> result) {
+            this.task = task;
+            this.result = result;
+        }
+    }
+
+    public static class ModelUnavailableException extends RuntimeException {
+        public ModelUnavailableException(String message) {
+            super(message);
+        }
+    }
+}
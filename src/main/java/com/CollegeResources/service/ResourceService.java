@@ -1,13 +1,11 @@
 package com.CollegeResources.service;
 
+import com.CollegeResources.storage.BlobStorage;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -17,19 +15,16 @@ import java.util.UUID;
 @Service
 public class ResourceService {
 
-    // Base directory for storing uploaded resources
-    private final Path rootLocation = Paths.get("uploads");
+    // Storage keys of uploaded resources start with this prefix
+    public static final String KEY_PREFIX = "resources/";
+
+    private final BlobStorage blobStorage;
 
     // Map to track resources by user group
     private final Map<String, Map<String, List<ResourceInfo>>> resourcesByGroup = new HashMap<>();
 
-    public ResourceService() {
-        // Create the upload directory if it doesn't exist
-        try {
-            Files.createDirectories(rootLocation);
-        } catch (IOException e) {
-            throw new RuntimeException("Could not initialize storage location", e);
-        }
+    public ResourceService(BlobStorage blobStorage) {
+        this.blobStorage = blobStorage;
 
         // Initialize with some dummy data for testing
         initializeDummyData();
@@ -65,14 +60,11 @@ public class ResourceService {
             String fileId = UUID.randomUUID().toString();
             String storedFilename = fileId + "_" + originalFilename;
 
-            // Create user group directory if it doesn't exist
-            Path groupDir = rootLocation.resolve(userGroup);
-            Path courseDir = groupDir.resolve(courseCode);
-            Files.createDirectories(courseDir);
-
-            // Copy file to the target location
-            Path destinationFile = courseDir.resolve(storedFilename);
-            Files.copy(file.getInputStream(), destinationFile, StandardCopyOption.REPLACE_EXISTING);
+            // Store under the user group and course
+            String key = KEY_PREFIX + userGroup + "/" + courseCode + "/" + storedFilename;
+            try (InputStream in = file.getInputStream()) {
+                blobStorage.put(key, in, file.getSize(), file.getContentType());
+            }
 
             // Create and store resource metadata
             ResourceInfo resourceInfo = new ResourceInfo(fileId, title, originalFilename);
@@ -0,0 +1,215 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.dto.DueReview;
+import com.CollegeResources.dto.ServedQuestion;
+import com.CollegeResources.model.BankedQuestion;
+import com.CollegeResources.model.QuizAnswer;
+import com.CollegeResources.model.ReviewItem;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Per-student review queues over banked questions. Every graded answer
+ * reschedules only its own item (questions answered wrong join the queue),
+ * and items are indexed by (userEmail, dueAt), so finding what is due is a
+ * range query on that index.
+ *
+ * Changed items are buffered, latest state per item, and upserted in
+ * bounded unordered bulks. Due times get a little random jitter, so a
+ * whole cohort taking the same quiz does not fall due at the same moment.
+ */
+@Service
+public class ReviewScheduleService {
+
+    private static final double MIN_EASINESS = 1.3;
+
+    private final MongoTemplate mongoTemplate;
+    private final QuestionBankService questionBankService;
+
+    private final Map<String, ReviewItem> pending = new ConcurrentHashMap<>();
+    // Taken from pending by a flush that has not finished yet
+    private final Map<String, ReviewItem> writing = new ConcurrentHashMap<>();
+
+    @Value("${quiz.review.jitter:0.1}")
+    private double jitter;
+
+    @Value("${quiz.review.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    public ReviewScheduleService(MongoTemplate mongoTemplate, QuestionBankService questionBankService) {
+        this.mongoTemplate = mongoTemplate;
+        this.questionBankService = questionBankService;
+    }
+
+    @PostConstruct
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(ReviewItem.class)
+                .ensureIndex(new Index().on("userEmail", Sort.Direction.ASC).on("dueAt", Sort.Direction.ASC));
+    }
+
+    /**
+     * Reschedules the user's items for the graded answers. A correct answer
+     * to a question that is not in the queue leaves the queue alone.
+     */
+    public void recordAnswers(String userEmail, String courseId, List<QuizAnswer> answers) {
+        Map<String, QuizAnswer> byItemId = new LinkedHashMap<>();
+        for (QuizAnswer answer : answers) {
+            byItemId.put(userEmail + "|" + answer.getQuestionId(), answer);
+        }
+
+        // Items not waiting to be written are read in one query. Buffered ones
+        // are copied, since a flush may be serialising the buffered instance.
+        Map<String, ReviewItem> items = new HashMap<>();
+        List<String> unbuffered = new ArrayList<>();
+        for (String id : byItemId.keySet()) {
+            ReviewItem buffered = pending.getOrDefault(id, writing.get(id));
+            if (buffered != null) {
+                items.put(id, new ReviewItem(buffered));
+            } else {
+                unbuffered.add(id);
+            }
+        }
+        if (!unbuffered.isEmpty()) {
+            for (ReviewItem item : mongoTemplate.find(Query.query(Criteria.where("_id").in(unbuffered)), ReviewItem.class)) {
+                items.put(item.getId(), item);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        byItemId.forEach((id, answer) -> {
+            ReviewItem item = items.get(id);
+            if (item == null) {
+                if (answer.isCorrect()) {
+                    return;
+                }
+                item = new ReviewItem(userEmail, answer.getQuestionId(), courseId);
+            }
+            schedule(item, answer.isCorrect() ? 4 : 1, now);
+            pending.put(id, item);
+        });
+    }
+
+    /**
+     * The user's items due by now, earliest first, optionally for one course
+     */
+    public List<DueReview> getDue(String userEmail, String courseId, int limit) {
+        Criteria criteria = Criteria.where("userEmail").is(userEmail).and("dueAt").lte(LocalDateTime.now());
+        if (courseId != null) {
+            criteria = criteria.and("courseId").is(courseId);
+        }
+        Query query = Query.query(criteria).with(Sort.by(Sort.Direction.ASC, "dueAt")).limit(limit);
+        List<ReviewItem> items = mongoTemplate.find(query, ReviewItem.class);
+
+        Map<String, BankedQuestion> questions = new HashMap<>();
+        for (BankedQuestion banked : questionBankService.findByIds(
+                items.stream().map(ReviewItem::getQuestionId).toList())) {
+            questions.put(banked.getId(), banked);
+        }
+
+        List<DueReview> due = new ArrayList<>();
+        for (ReviewItem item : items) {
+            BankedQuestion banked = questions.get(item.getQuestionId());
+            if (banked == null) {
+                continue;
+            }
+            banked.getQuestion().setId(banked.getId());
+            due.add(new DueReview(item.getCourseId(), ServedQuestion.of(banked.getQuestion()), item.getDueAt(),
+                    item.getRepetitions(), item.getLapses()));
+        }
+        return due;
+    }
+
+    /**
+     * Number of the user's items due by now, optionally for one course
+     */
+    public long countDue(String userEmail, String courseId) {
+        Criteria criteria = Criteria.where("userEmail").is(userEmail).and("dueAt").lte(LocalDateTime.now());
+        if (courseId != null) {
+            criteria = criteria.and("courseId").is(courseId);
+        }
+        return mongoTemplate.count(Query.query(criteria), ReviewItem.class);
+    }
+
+    /**
+     * Upserts the items changed since the last flush, at most
+     * flushBatchSize per bulk write
+     */
+    @Scheduled(fixedDelayString = "${quiz.review.flush-interval-ms:5000}")
+    @PreDestroy
+    public void flush() {
+        List<ReviewItem> changed = new ArrayList<>();
+        for (String id : new ArrayList<>(pending.keySet())) {
+            ReviewItem item = pending.remove(id);
+            if (item != null) {
+                writing.put(id, item);
+                changed.add(item);
+            }
+        }
+
+        for (int from = 0; from < changed.size(); from += flushBatchSize) {
+            List<ReviewItem> batch = changed.subList(from, Math.min(changed.size(), from + flushBatchSize));
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ReviewItem.class);
+            for (ReviewItem item : batch) {
+                bulk.replaceOne(Query.query(Criteria.where("_id").is(item.getId())), item,
+                        FindAndReplaceOptions.options().upsert());
+            }
+            try {
+                bulk.execute();
+            } catch (RuntimeException e) {
+                // Keep them for the next flush unless a newer state was buffered meanwhile
+                for (ReviewItem item : batch) {
+                    pending.putIfAbsent(item.getId(), item);
+                }
+                System.err.println("Failed to store " + batch.size() + " review items: " + e.getMessage());
+            } finally {
+                for (ReviewItem item : batch) {
+                    writing.remove(item.getId(), item);
+                }
+            }
+        }
+    }
+
+    // SM-2 with answer quality 0-5, where 3 and above counts as recalled
+    private void schedule(ReviewItem item, int quality, LocalDateTime now) {
+        if (quality < 3) {
+            item.setRepetitions(0);
+            item.setIntervalDays(1);
+            item.setLapses(item.getLapses() + 1);
+        } else {
+            int repetitions = item.getRepetitions() + 1;
+            item.setRepetitions(repetitions);
+            if (repetitions == 1) {
+                item.setIntervalDays(1);
+            } else if (repetitions == 2) {
+                item.setIntervalDays(6);
+            } else {
+                item.setIntervalDays((int) Math.round(item.getIntervalDays() * item.getEasiness()));
+            }
+        }
+
+        double easiness = item.getEasiness() + 0.1 - (5 - quality) * (0.08 + (5 - quality) * 0.02);
+        item.setEasiness(Math.max(MIN_EASINESS, easiness));
+
+        // Spread due times by up to +/- jitter of the interval
+        long intervalMinutes = item.getIntervalDays() * 24L * 60L;
+        long spread = (long) (intervalMinutes * jitter);
+        long offset = spread > 0 ? ThreadLocalRandom.current().nextLong(-spread, spread + 1) : 0;
+        item.setDueAt(now.plusMinutes(intervalMinutes + offset));
+        item.setLastReviewedAt(now);
+    }
+}
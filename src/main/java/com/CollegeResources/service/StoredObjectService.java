@@ -0,0 +1,97 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.model.StoredObject;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Content-hash -> object-key table with reference counting, so identical
+ * uploads share a single object in the bucket.
+ */
+@Service
+public class StoredObjectService {
+
+    private final MongoTemplate mongoTemplate;
+
+    public StoredObjectService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Computes the hex SHA-256 of a stream without buffering it
+     */
+    public String sha256(InputStream inputStream) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+
+        try (DigestInputStream in = new DigestInputStream(inputStream, digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Takes a reference on the object with this content hash, creating the
+     * entry with the candidate key if it does not exist yet. Unless the
+     * returned entry is marked uploaded, the caller must store the bytes
+     * under the returned key itself and then call markUploaded.
+     */
+    public StoredObject acquire(String contentHash, String candidateKey, String candidateUrl,
+                                long size, String contentType) {
+        Query query = new Query(where("_id").is(contentHash));
+        Update update = new Update()
+                .inc("refCount", 1)
+                .setOnInsert("objectKey", candidateKey)
+                .setOnInsert("fileUrl", candidateUrl)
+                .setOnInsert("size", size)
+                .setOnInsert("contentType", contentType)
+                .setOnInsert("createdAt", LocalDateTime.now());
+
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                StoredObject.class);
+    }
+
+    /**
+     * Records that the object's bytes are in the bucket
+     */
+    public void markUploaded(String contentHash) {
+        mongoTemplate.updateFirst(new Query(where("_id").is(contentHash)),
+                new Update().set("uploaded", true), StoredObject.class);
+    }
+
+    /**
+     * Drops one reference. Returns the entry after the decrement, or null if
+     * there was no entry for this hash. Entries that reach zero are left in
+     * place for the storage cleanup to remove together with the object.
+     */
+    public StoredObject release(String contentHash) {
+        if (contentHash == null) {
+            return null;
+        }
+        Query query = new Query(where("_id").is(contentHash).and("refCount").gt(0));
+        Update update = new Update().inc("refCount", -1);
+
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true),
+                StoredObject.class);
+    }
+}
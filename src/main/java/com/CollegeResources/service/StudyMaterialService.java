@@ -1,149 +1,272 @@
 package com.CollegeResources.service;
 
+import com.CollegeResources.dto.BatchUploadResult;
+import com.CollegeResources.model.StoredObject;
 import com.CollegeResources.model.StudyMaterial;
 import com.CollegeResources.repository.StudyMaterialRepository;
-import com.amazonaws.AmazonServiceException;
-import com.amazonaws.SdkClientException;
-import com.amazonaws.auth.AWSStaticCredentialsProvider;
-import com.amazonaws.auth.BasicAWSCredentials;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
-import com.amazonaws.services.s3.model.CannedAccessControlList;
-import com.amazonaws.services.s3.model.ObjectMetadata;
-import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.CollegeResources.storage.BlobStorage;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
 
 @Service
 public class StudyMaterialService {
 
     private final StudyMaterialRepository studyMaterialRepository;
+    private final StoredObjectService storedObjectService;
+    private final MongoTemplate mongoTemplate;
+    private final BlobStorage blobStorage;
+
+    @Value("${materials.upload.parallelism:4}")
+    private int uploadParallelism;
 
+    public StudyMaterialService(StudyMaterialRepository studyMaterialRepository,
+                                StoredObjectService storedObjectService,
+                                MongoTemplate mongoTemplate,
+                                BlobStorage blobStorage) {
+        this.studyMaterialRepository = studyMaterialRepository;
+        this.storedObjectService = storedObjectService;
+        this.mongoTemplate = mongoTemplate;
+        this.blobStorage = blobStorage;
+    }
 
-    @Value("${cloud.aws.credentials.access-key}")
-    private String accessKey;
+    @PostConstruct
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(StudyMaterial.class).ensureIndex(new Index().on("objectKey", Sort.Direction.ASC));
+    }
+
+    /**
+     * Uploads a new study material. Files whose bytes are already stored are
+     * not uploaded again; the new material points at the existing object.
+     */
+    public StudyMaterial uploadMaterial(MultipartFile file, String title, String description,
+                                        String courseId, String uploadedBy) throws IOException {
+        StudyMaterial material = storeFile(file, title, description, courseId, uploadedBy);
+        try {
+            return studyMaterialRepository.save(material);
+        } catch (RuntimeException e) {
+            storedObjectService.release(material.getContentHash());
+            throw e;
+        }
+    }
 
-    @Value("${cloud.aws.credentials.secret-key}")
-    private String secretKey;
+    /**
+     * Uploads several materials for one course. Files are stored concurrently,
+     * at most uploadParallelism at a time, and all successfully stored
+     * materials are inserted with a single bulk write. A failing file does not
+     * fail the batch; its result carries the error instead.
+     */
+    public List<BatchUploadResult> uploadMaterials(List<MultipartFile> files, List<String> titles,
+                                                   List<String> descriptions, String courseId,
+                                                   String uploadedBy) {
+        List<BatchUploadResult> results = new ArrayList<>();
+        List<Future<StudyMaterial>> futures = new ArrayList<>();
+        Semaphore permits = new Semaphore(Math.max(1, uploadParallelism));
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < files.size(); i++) {
+                MultipartFile file = files.get(i);
+                String title = valueAt(titles, i, file.getOriginalFilename());
+                String description = valueAt(descriptions, i, "");
+
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return storeFile(file, title, description, courseId, uploadedBy);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
 
-    @Value("${s3.bucket.name}")
-    private String bucketName;
+            List<StudyMaterial> stored = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                String fileName = files.get(i).getOriginalFilename();
+                try {
+                    StudyMaterial material = futures.get(i).get();
+                    stored.add(material);
+                    results.add(BatchUploadResult.success(fileName, material));
+                } catch (ExecutionException e) {
+                    results.add(BatchUploadResult.failure(fileName, e.getCause().getMessage()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    results.add(BatchUploadResult.failure(fileName, "Upload interrupted"));
+                }
+            }
 
-    @Value("${cloud.aws.region.static}")
-    private String region;
+            if (!stored.isEmpty()) {
+                try {
+                    // New documents only, so this is one insertMany
+                    studyMaterialRepository.saveAll(stored);
+                } catch (RuntimeException e) {
+                    for (StudyMaterial material : stored) {
+                        storedObjectService.release(material.getContentHash());
+                    }
+                    for (BatchUploadResult result : results) {
+                        if (result.isSuccess()) {
+                            result.markFailed("Failed to save material: " + e.getMessage());
+                        }
+                    }
+                }
+            }
+        }
 
-    public StudyMaterialService(StudyMaterialRepository studyMaterialRepository) {
-        this.studyMaterialRepository = studyMaterialRepository;
+        return results;
     }
 
     /**
-     * Uploads a new study material
+     * Stores the file content (deduplicated) and returns the unsaved material
      */
-    public StudyMaterial uploadMaterial(MultipartFile file, String title, String description,
-                                        String courseId, String uploadedBy) throws IOException {
+    private StudyMaterial storeFile(MultipartFile file, String title, String description,
+                                    String courseId, String uploadedBy) throws IOException {
         if (file.isEmpty()) {
             throw new IOException("Failed to store empty file");
         }
 
-
-        // Create S3 client
-        AmazonS3 s3Client = AmazonS3ClientBuilder.standard()
-                .withCredentials(new AWSStaticCredentialsProvider(
-                        new BasicAWSCredentials(accessKey, secretKey)))
-                .withRegion(region)
-                .build();
+        // Hash the content first so duplicates never reach storage
+        String contentHash;
+        try (InputStream in = file.getInputStream()) {
+            contentHash = storedObjectService.sha256(in);
+        }
 
         //unique file name
         String originalFilename = file.getOriginalFilename();
         String fileExtension = getFileExtension(originalFilename);
         String uniqueFileName = UUID.randomUUID().toString() + "." + fileExtension;
 
-        // Upload the file to S3
-        try {
-            ObjectMetadata metadata = new ObjectMetadata();
-            metadata.setContentLength(file.getSize());
-            metadata.setContentType(file.getContentType());
-
-            s3Client.putObject(new PutObjectRequest(
-                    bucketName,
-                    uniqueFileName,
-                    file.getInputStream(),
-                    metadata)
-                    .withCannedAcl(CannedAccessControlList.PublicRead)); // Makes the file publicly readable
-
-            // S3 URL
-            String s3Url = "https://" + bucketName + ".s3." + region + ".amazonaws.com/" + uniqueFileName;
-
-            // save
-            StudyMaterial material = new StudyMaterial(
-                    title,
-                    description,
-                    originalFilename,
-                    fileExtension,
-                    s3Url,
-                    courseId,
-                    uploadedBy
-            );
+        String fileUrl = blobStorage.publicUrl(uniqueFileName);
 
-            return studyMaterialRepository.save(material);
+        StoredObject storedObject = storedObjectService.acquire(
+                contentHash, uniqueFileName, fileUrl, file.getSize(), file.getContentType());
 
-        } catch (AmazonServiceException e) {
-            throw new IOException("Failed to upload file to Amazon S3: " + e.getMessage());
-        } catch (SdkClientException e) {
-            throw new IOException("Error communicating with Amazon S3: " + e.getMessage());
+        // Upload unless the bytes are known to be stored. Concurrent uploads of
+        // the same content write identical bytes to the same key, and a failed
+        // one only gives up its own reference.
+        if (!storedObject.isUploaded()) {
+            try (InputStream in = file.getInputStream()) {
+                blobStorage.put(storedObject.getObjectKey(), in, file.getSize(), file.getContentType());
+            } catch (IOException | RuntimeException e) {
+                storedObjectService.release(contentHash);
+                throw e;
+            }
+            storedObjectService.markUploaded(contentHash);
         }
+
+        // save
+        StudyMaterial material = new StudyMaterial(
+                title,
+                description,
+                originalFilename,
+                fileExtension,
+                storedObject.getFileUrl(),
+                courseId,
+                uploadedBy
+        );
+        material.setObjectKey(storedObject.getObjectKey());
+        material.setContentHash(contentHash);
+
+        return material;
     }
+
     /**
      * Gets all study materials
      */
     public List<StudyMaterial> getAllMaterials() {
-        return studyMaterialRepository.findAll();
+        return studyMaterialRepository.findByDeletedNot(true);
     }
 
     /**
      * Gets study materials for a course
      */
     public List<StudyMaterial> getMaterialsByCourse(String courseId) {
-        return studyMaterialRepository.findByCourseId(courseId);
+        return studyMaterialRepository.findByCourseIdAndDeletedNot(courseId, true);
     }
 
     /**
      * Gets a material by ID
      */
     public Optional<StudyMaterial> getMaterialById(String id) {
-        return studyMaterialRepository.findById(id);
+        return studyMaterialRepository.findById(id)
+                .filter(material -> !material.isDeleted());
     }
 
     /**
-     * Deletes a study material
+     * Deletes a study material. The material is tombstoned and hidden right
+     * away; the document and the stored object are removed by the reaper.
      */
     public void deleteMaterial(String id) throws IOException {
-//        Optional<StudyMaterial> materialOpt = studyMaterialRepository.findById(id);
-//        if (materialOpt.isPresent()) {
-//            StudyMaterial material = materialOpt.get();
-//
-//            String fileUrl = material.getFileUrl();
-//            String publicId = extractPublicIdFromUrl(fileUrl);
-//
-//            cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
-//
-//            // Delete from database
-//            studyMaterialRepository.deleteById(id);
-//        }
+        Query query = new Query(where("_id").is(id).and("deleted").ne(true));
+        Update update = new Update()
+                .set("deleted", true)
+                .set("deletedAt", LocalDateTime.now());
+
+        StudyMaterial material = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), StudyMaterial.class);
+
+        // Only the call that flipped the flag drops the content reference
+        if (material != null) {
+            storedObjectService.release(material.getContentHash());
+        }
+    }
+
+    /**
+     * Deletes every material of a course
+     */
+    public int deleteMaterialsByCourse(String courseId) throws IOException {
+        List<StudyMaterial> materials = studyMaterialRepository.findByCourseIdAndDeletedNot(courseId, true);
+        for (StudyMaterial material : materials) {
+            deleteMaterial(material.getId());
+        }
+        return materials.size();
+    }
+
+    /**
+     * Gets the most downloaded materials of a course
+     */
+    public List<StudyMaterial> getMostDownloaded(String courseId, int limit) {
+        return studyMaterialRepository.findByCourseIdAndDeletedNotOrderByDownloadCountDesc(
+                courseId, true, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Finds the live material stored under the given object key, if only one
+     * is. Deduplicated uploads share their key, so it can't tell them apart.
+     */
+    public Optional<StudyMaterial> getMaterialByObjectKey(String objectKey) {
+        List<StudyMaterial> materials = studyMaterialRepository.findByObjectKeyAndDeletedNot(
+                objectKey, true, PageRequest.of(0, 2));
+        return materials.size() == 1 ? Optional.of(materials.get(0)) : Optional.empty();
     }
 
     /**
      * Updates material details (not the file itself)
      */
     public StudyMaterial updateMaterialDetails(String id, String title, String description) {
-        Optional<StudyMaterial> materialOpt = studyMaterialRepository.findById(id);
+        Optional<StudyMaterial> materialOpt = getMaterialById(id);
         if (materialOpt.isPresent()) {
             StudyMaterial material = materialOpt.get();
             material.setTitle(title);
@@ -157,7 +280,28 @@ public class StudyMaterialService {
      * Search for materials by title
      */
     public List<StudyMaterial> searchMaterialsByTitle(String searchTerm) {
-        return studyMaterialRepository.findByTitleContainingIgnoreCase(searchTerm);
+        return studyMaterialRepository.findByTitleContainingIgnoreCaseAndDeletedNot(searchTerm, true);
+    }
+
+    /**
+     * Returns the storage key of a material; older materials only carry the URL
+     */
+    public String getObjectKey(StudyMaterial material) {
+        if (material.getObjectKey() != null) {
+            return material.getObjectKey();
+        }
+        String fileUrl = material.getFileUrl();
+        if (fileUrl == null || fileUrl.isEmpty()) {
+            return null;
+        }
+        return fileUrl.substring(fileUrl.lastIndexOf('/') + 1);
+    }
+
+    private String valueAt(List<String> values, int index, String defaultValue) {
+        if (values == null || index >= values.size() || values.get(index) == null) {
+            return defaultValue;
+        }
+        return values.get(index);
     }
 
     /**
@@ -0,0 +1,106 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.dto.TrendingMaterial;
+import com.CollegeResources.model.StudyMaterial;
+import com.CollegeResources.repository.StudyMaterialRepository;
+import com.CollegeResources.utils.SpaceSavingSketch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * "Trending this week" overall and per department. Download events feed a
+ * decayed Space-Saving sketch per dimension; a scheduled refresh turns the
+ * sketches into ready-made lists so reads are a single map lookup.
+ */
+@Service
+public class TrendingService {
+
+    public static final String OVERALL = "all";
+
+    private final CourseAccessService courseAccessService;
+    private final StudyMaterialRepository studyMaterialRepository;
+
+    private final ConcurrentHashMap<String, SpaceSavingSketch> sketches = new ConcurrentHashMap<>();
+    private volatile Map<String, List<TrendingMaterial>> snapshot = Collections.emptyMap();
+
+    @Value("${materials.trending.capacity:200}")
+    private int capacity;
+
+    @Value("${materials.trending.top-k:20}")
+    private int topK;
+
+    @Value("${materials.trending.half-life-hours:84}")
+    private long halfLifeHours;
+
+    public TrendingService(CourseAccessService courseAccessService,
+                           StudyMaterialRepository studyMaterialRepository) {
+        this.courseAccessService = courseAccessService;
+        this.studyMaterialRepository = studyMaterialRepository;
+    }
+
+    public void recordDownload(StudyMaterial material) {
+        long now = System.currentTimeMillis();
+        sketch(OVERALL).add(material.getId(), now);
+
+        String department = courseAccessService.getDepartment(material.getCourseId());
+        if (department != null) {
+            sketch(department.toLowerCase()).add(material.getId(), now);
+        }
+    }
+
+    /**
+     * Trending materials for a department, or overall when department is null
+     */
+    public List<TrendingMaterial> getTrending(String department, int limit) {
+        String dimension = department == null ? OVERALL : department.toLowerCase();
+        List<TrendingMaterial> items = snapshot.getOrDefault(dimension, Collections.emptyList());
+        return items.size() > limit ? items.subList(0, limit) : items;
+    }
+
+    @Scheduled(fixedDelayString = "${materials.trending.refresh-interval-ms:30000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        Map<String, List<Map.Entry<String, Double>>> tops = new HashMap<>();
+        Set<String> ids = new HashSet<>();
+
+        sketches.forEach((dimension, sketch) -> {
+            List<Map.Entry<String, Double>> top = sketch.top(topK, now);
+            tops.put(dimension, top);
+            top.forEach(entry -> ids.add(entry.getKey()));
+        });
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        // One lookup for every dimension; deleted materials drop out here
+        Map<String, StudyMaterial> materials = new HashMap<>();
+        for (StudyMaterial material : studyMaterialRepository.findAllById(ids)) {
+            if (!material.isDeleted()) {
+                materials.put(material.getId(), material);
+            }
+        }
+
+        Map<String, List<TrendingMaterial>> next = new HashMap<>();
+        tops.forEach((dimension, top) -> {
+            List<TrendingMaterial> items = new ArrayList<>();
+            for (Map.Entry<String, Double> entry : top) {
+                StudyMaterial material = materials.get(entry.getKey());
+                if (material != null) {
+                    items.add(new TrendingMaterial(material.getId(), material.getTitle(),
+                            material.getFileName(), material.getCourseId(), entry.getValue()));
+                }
+            }
+            next.put(dimension, Collections.unmodifiableList(items));
+        });
+        snapshot = next;
+    }
+
+    private SpaceSavingSketch sketch(String dimension) {
+        return sketches.computeIfAbsent(dimension, d -> new SpaceSavingSketch(
+                capacity, halfLifeHours * 3600_000L, System.currentTimeMillis()));
+    }
+}
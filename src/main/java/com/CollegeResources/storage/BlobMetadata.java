@@ -0,0 +1,33 @@
+package com.CollegeResources.storage;
+
+import java.time.Instant;
+
+public class BlobMetadata {
+    private final String key;
+    private final long size;
+    private final String contentType;
+    private final Instant lastModified;
+
+    public BlobMetadata(String key, long size, String contentType, Instant lastModified) {
+        this.key = key;
+        this.size = size;
+        this.contentType = contentType;
+        this.lastModified = lastModified;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+}
@@ -0,0 +1,66 @@
+package com.CollegeResources.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Object storage used for uploaded files. The backend is chosen with the
+ * storage.backend property: "s3" (default) or "local".
+ */
+public interface BlobStorage {
+
+    /**
+     * Stores the content under the key, replacing anything already there
+     */
+    void put(String key, InputStream content, long length, String contentType) throws IOException;
+
+    /**
+     * Opens the whole object for reading
+     */
+    InputStream get(String key) throws IOException;
+
+    /**
+     * Opens the bytes start..endInclusive of the object for reading
+     */
+    InputStream getRange(String key, long start, long endInclusive) throws IOException;
+
+    /**
+     * Returns the object's metadata, or empty if it does not exist
+     */
+    Optional<BlobMetadata> head(String key) throws IOException;
+
+    /**
+     * Deletes the keys, batching where the backend supports it.
+     * Returns the keys that could not be deleted.
+     */
+    List<String> delete(List<String> keys);
+
+    /**
+     * Calls the consumer for every stored object
+     */
+    void forEach(Consumer<BlobMetadata> consumer) throws IOException;
+
+    /**
+     * Time-limited URL a client can fetch the object from directly
+     */
+    String presign(String key, Duration validFor);
+
+    /**
+     * Permanent URL stored on materials
+     */
+    String publicUrl(String key);
+
+    /**
+     * Writes length bytes starting at start to the output stream
+     */
+    default long transferTo(String key, long start, long length, OutputStream out) throws IOException {
+        try (InputStream in = getRange(key, start, start + length - 1)) {
+            return in.transferTo(out);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.CollegeResources.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Stores objects as files under storage.local.root. Meant for local runs and
+ * benchmarks without AWS, and for on-prem deployments.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class LocalBlobStorage implements BlobStorage {
+
+    private final Path root;
+
+    @Value("${storage.local.public-base-url:/api/materials/direct-download/}")
+    private String publicBaseUrl;
+
+    public LocalBlobStorage(@Value("${storage.local.root:uploads}") String root) throws IOException {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        Files.createDirectories(this.root);
+    }
+
+    @Override
+    public void put(String key, InputStream content, long length, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+
+        // Write next to the target and move, so readers never see a partial file
+        Path temp = Files.createTempFile(target.getParent(), ".upload", ".tmp");
+        try {
+            Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return Files.newInputStream(existing(key));
+    }
+
+    @Override
+    public InputStream getRange(String key, long start, long endInclusive) throws IOException {
+        FileChannel channel = FileChannel.open(existing(key), StandardOpenOption.READ);
+        channel.position(start);
+        return new RangeInputStream(Channels.newInputStream(channel), endInclusive - start + 1);
+    }
+
+    @Override
+    public Optional<BlobMetadata> head(String key) throws IOException {
+        Path path = resolve(key);
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return Optional.of(new BlobMetadata(key, attributes.size(), Files.probeContentType(path),
+                attributes.lastModifiedTime().toInstant()));
+    }
+
+    @Override
+    public List<String> delete(List<String> keys) {
+        List<String> failed = new ArrayList<>();
+        for (String key : keys) {
+            try {
+                Files.deleteIfExists(resolve(key));
+            } catch (IOException | IllegalArgumentException e) {
+                failed.add(key);
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public void forEach(Consumer<BlobMetadata> consumer) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                String key = root.relativize(path).toString().replace('\\', '/');
+                consumer.accept(new BlobMetadata(key, attributes.size(), null,
+                        attributes.lastModifiedTime().toInstant()));
+            }
+        }
+    }
+
+    @Override
+    public String presign(String key, Duration validFor) {
+        // Files are served by the application itself, there is nothing to sign
+        return publicUrl(key);
+    }
+
+    @Override
+    public String publicUrl(String key) {
+        return publicBaseUrl + key;
+    }
+
+    /**
+     * Sends the file with FileChannel.transferTo so the kernel can copy it
+     * without pulling the bytes through a heap buffer.
+     */
+    @Override
+    public long transferTo(String key, long start, long length, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(existing(key), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long remaining = Math.min(length, channel.size() - start);
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+            return position - start;
+        }
+    }
+
+    private Path existing(String key) throws IOException {
+        Path path = resolve(key);
+        if (!Files.isRegularFile(path)) {
+            throw new NoSuchFileException(key);
+        }
+        return path;
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        return path;
+    }
+
+    private static final class RangeInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        private RangeInputStream(InputStream in, long remaining) {
+            this.in = in;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = in.read(buffer, offset, (int) Math.min(length, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
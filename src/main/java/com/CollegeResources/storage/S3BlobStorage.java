@@ -0,0 +1,138 @@
+package com.CollegeResources.storage;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Consumer;
+
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3", matchIfMissing = true)
+public class S3BlobStorage implements BlobStorage {
+
+    // S3 DeleteObjects accepts at most 1000 keys per request
+    private static final int MAX_KEYS_PER_DELETE = 1000;
+
+    private final AmazonS3 s3Client;
+
+    @Value("${s3.bucket.name}")
+    private String bucketName;
+
+    @Value("${cloud.aws.region.static}")
+    private String region;
+
+    public S3BlobStorage(AmazonS3 s3Client) {
+        this.s3Client = s3Client;
+    }
+
+    @Override
+    public void put(String key, InputStream content, long length, String contentType) throws IOException {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(length);
+        metadata.setContentType(contentType);
+
+        try {
+            s3Client.putObject(new PutObjectRequest(bucketName, key, content, metadata)
+                    .withCannedAcl(CannedAccessControlList.PublicRead)); // Makes the file publicly readable
+        } catch (AmazonServiceException e) {
+            throw new IOException("Failed to upload file to Amazon S3: " + e.getMessage());
+        } catch (SdkClientException e) {
+            throw new IOException("Error communicating with Amazon S3: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        try {
+            return s3Client.getObject(bucketName, key).getObjectContent();
+        } catch (SdkClientException e) {
+            throw new IOException("Failed to read " + key + " from Amazon S3: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public InputStream getRange(String key, long start, long endInclusive) throws IOException {
+        try {
+            return s3Client.getObject(new GetObjectRequest(bucketName, key).withRange(start, endInclusive))
+                    .getObjectContent();
+        } catch (SdkClientException e) {
+            throw new IOException("Failed to read " + key + " from Amazon S3: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Optional<BlobMetadata> head(String key) throws IOException {
+        try {
+            ObjectMetadata metadata = s3Client.getObjectMetadata(bucketName, key);
+            return Optional.of(new BlobMetadata(key, metadata.getContentLength(), metadata.getContentType(),
+                    metadata.getLastModified() == null ? null : metadata.getLastModified().toInstant()));
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                return Optional.empty();
+            }
+            throw new IOException("S3 Error: " + e.getMessage());
+        } catch (SdkClientException e) {
+            throw new IOException("Error communicating with Amazon S3: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<String> delete(List<String> keys) {
+        List<String> failed = new ArrayList<>();
+
+        for (int start = 0; start < keys.size(); start += MAX_KEYS_PER_DELETE) {
+            List<String> batch = keys.subList(start, Math.min(start + MAX_KEYS_PER_DELETE, keys.size()));
+            DeleteObjectsRequest request = new DeleteObjectsRequest(bucketName)
+                    .withKeys(batch.toArray(new String[0]))
+                    .withQuiet(true);
+            try {
+                s3Client.deleteObjects(request);
+            } catch (MultiObjectDeleteException e) {
+                for (MultiObjectDeleteException.DeleteError error : e.getErrors()) {
+                    failed.add(error.getKey());
+                }
+            } catch (SdkClientException e) {
+                System.err.println("DeleteObjects failed: " + e.getMessage());
+                failed.addAll(batch);
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public void forEach(Consumer<BlobMetadata> consumer) throws IOException {
+        ListObjectsV2Request request = new ListObjectsV2Request().withBucketName(bucketName);
+        ListObjectsV2Result result;
+        try {
+            do {
+                result = s3Client.listObjectsV2(request);
+                for (S3ObjectSummary summary : result.getObjectSummaries()) {
+                    consumer.accept(new BlobMetadata(summary.getKey(), summary.getSize(), null,
+                            summary.getLastModified().toInstant()));
+                }
+                request.setContinuationToken(result.getNextContinuationToken());
+            } while (result.isTruncated());
+        } catch (SdkClientException e) {
+            throw new IOException("Failed to list Amazon S3 bucket: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String presign(String key, Duration validFor) {
+        Date expiration = new Date(System.currentTimeMillis() + validFor.toMillis());
+        return s3Client.generatePresignedUrl(bucketName, key, expiration).toString();
+    }
+
+    @Override
+    public String publicUrl(String key) {
+        return "https://" + bucketName + ".s3." + region + ".amazonaws.com/" + key;
+    }
+}
@@ -0,0 +1,122 @@
+package com.CollegeResources.utils;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Count-based circuit breaker. It opens when at least failureRateThreshold
+ * of the last windowSize calls failed (once minimumCalls have been seen),
+ * rejects calls while open, and after openDurationMs lets a single trial
+ * call through: success closes it again, failure re-opens it.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final BiConsumer<State, State> onTransition;
+
+    // Ring buffer of recent outcomes, true = failure
+    private final boolean[] outcomes;
+    private int recorded;
+    private int next;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(double failureRateThreshold, int windowSize, int minimumCalls, long openDurationMs,
+                          BiConsumer<State, State> onTransition) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.outcomes = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, outcomes.length));
+        this.openDurationNanos = openDurationMs * 1_000_000L;
+        this.onTransition = onTransition;
+    }
+
+    /**
+     * Returns true if a call may proceed; every permitted call must be
+     * followed by onSuccess or onFailure
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openDurationNanos) {
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+            reset();
+            transition(State.CLOSED);
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded >= minimumCalls
+                && (double) failures / recorded >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        openedAt = System.nanoTime();
+        reset();
+        transition(State.OPEN);
+    }
+
+    private void reset() {
+        recorded = 0;
+        next = 0;
+        failures = 0;
+    }
+
+    private void transition(State to) {
+        State from = state;
+        state = to;
+        if (from != to && onTransition != null) {
+            onTransition.accept(from, to);
+        }
+    }
+}
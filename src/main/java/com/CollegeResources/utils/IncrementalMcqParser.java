@@ -0,0 +1,156 @@
+package com.CollegeResources.utils;
+
+import com.CollegeResources.model.McqOption;
+import com.CollegeResources.model.McqQuestion;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Parses a JSON array of questions as it streams in from the model, handing
+ * each question to the consumer as soon as its closing brace arrives. Text
+ * before the opening bracket (such as a markdown fence) and anything after
+ * the closing bracket is ignored; elements that do not map to a valid
+ * question are skipped. If the JSON breaks off or turns invalid, parsing
+ * stops there and every question already emitted stands.
+ */
+public class IncrementalMcqParser {
+
+    private final ObjectMapper objectMapper;
+    private final Consumer<McqQuestion> onQuestion;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    private boolean started;
+    private boolean inArray;
+    private boolean complete;
+    private boolean broken;
+    private int emitted;
+    private int rejected;
+    private TokenBuffer element;
+    private int depth;
+
+    public IncrementalMcqParser(ObjectMapper objectMapper, Consumer<McqQuestion> onQuestion) throws IOException {
+        this.objectMapper = objectMapper;
+        this.onQuestion = onQuestion;
+        this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Feeds the next piece of model output
+     */
+    public void feed(String text) throws IOException {
+        if (complete || text == null || text.isEmpty()) {
+            return;
+        }
+        if (!started) {
+            int start = text.indexOf('[');
+            if (start < 0) {
+                return;
+            }
+            text = text.substring(start);
+            started = true;
+        }
+
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        feeder.feedInput(bytes, 0, bytes.length);
+        try {
+            drain();
+        } catch (JsonProcessingException e) {
+            // Salvage: keep what was emitted and ignore the rest
+            System.err.println("Model output is not valid JSON after " + emitted + " questions: " + e.getOriginalMessage());
+            complete = true;
+            broken = true;
+        }
+    }
+
+    /**
+     * True once the array has closed or the output became unparseable
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public boolean isBroken() {
+        return broken;
+    }
+
+    public int getEmitted() {
+        return emitted;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    /**
+     * A question is usable if it has text, at least two non-blank options
+     * and exactly one of them marked correct
+     */
+    public static boolean isValid(McqQuestion question) {
+        if (question.getQuestion() == null || question.getQuestion().isBlank()
+                || question.getOptions() == null || question.getOptions().size() < 2) {
+            return false;
+        }
+        int correct = 0;
+        for (McqOption option : question.getOptions()) {
+            if (option == null || option.getOption() == null || option.getOption().isBlank()) {
+                return false;
+            }
+            if (option.isCorrect()) {
+                correct++;
+            }
+        }
+        return correct == 1;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (!complete && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+            if (!inArray) {
+                inArray = token == JsonToken.START_ARRAY;
+                continue;
+            }
+
+            if (element != null) {
+                element.copyCurrentEvent(parser);
+                if (token.isStructStart()) {
+                    depth++;
+                } else if (token.isStructEnd() && --depth == 0) {
+                    emit();
+                }
+            } else if (token == JsonToken.START_OBJECT) {
+                element = new TokenBuffer(parser);
+                element.copyCurrentEvent(parser);
+                depth = 1;
+            } else if (token == JsonToken.END_ARRAY) {
+                complete = true;
+            }
+        }
+    }
+
+    private void emit() {
+        try (JsonParser questionParser = element.asParser(objectMapper)) {
+            McqQuestion question = objectMapper.readValue(questionParser, McqQuestion.class);
+            if (!isValid(question)) {
+                rejected++;
+                return;
+            }
+            emitted++;
+            onQuestion.accept(question);
+        } catch (IOException e) {
+            rejected++;
+            System.err.println("Skipping malformed question in model output: " + e.getMessage());
+        } finally {
+            element = null;
+        }
+    }
+}
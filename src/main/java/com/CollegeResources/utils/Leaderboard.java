@@ -0,0 +1,95 @@
+package com.CollegeResources.utils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory ranking kept sorted in a concurrent skip list, highest points
+ * first; among equal points whoever got there first ranks higher. Updates
+ * cost O(log n) and reading the top k costs O(log n + k), with readers
+ * never blocking writers.
+ */
+public class Leaderboard {
+
+    // Orders ties by arrival across every board
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final ConcurrentSkipListSet<Standing> ranking = new ConcurrentSkipListSet<>(
+            Comparator.comparingInt(Standing::getPoints).reversed()
+                    .thenComparingLong(standing -> standing.sequence)
+                    .thenComparing(Standing::getUserId));
+    private final Map<String, Standing> byUser = new ConcurrentHashMap<>();
+
+    /**
+     * Sets the user's points, moving them to their new place
+     */
+    public void update(String userId, String name, int points) {
+        // Writers for the same board are serialised so a user never appears twice for long
+        synchronized (this) {
+            Standing previous = byUser.get(userId);
+            if (previous != null && previous.points == points && Objects.equals(previous.name, name)) {
+                return;
+            }
+            Standing standing = new Standing(userId, name, points, SEQUENCE.incrementAndGet());
+            ranking.add(standing);
+            byUser.put(userId, standing);
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+        }
+    }
+
+    /**
+     * The best limit standings, best first
+     */
+    public List<Standing> top(int limit) {
+        List<Standing> top = new ArrayList<>(limit);
+        Set<String> seen = new HashSet<>();
+        for (Standing standing : ranking) {
+            if (top.size() >= limit) {
+                break;
+            }
+            // A reader may briefly see a user's old and new standing together
+            if (seen.add(standing.userId)) {
+                top.add(standing);
+            }
+        }
+        return top;
+    }
+
+    public Optional<Standing> get(String userId) {
+        return Optional.ofNullable(byUser.get(userId));
+    }
+
+    public int size() {
+        return byUser.size();
+    }
+
+    public static class Standing {
+        private final String userId;
+        private final String name;
+        private final int points;
+        private final long sequence;
+
+        Standing(String userId, String name, int points, long sequence) {
+            this.userId = userId;
+            this.name = name;
+            this.points = points;
+            this.sequence = sequence;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getPoints() {
+            return points;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.CollegeResources.utils;
+
+import java.util.*;
+
+/**
+ * Finds near-duplicate texts in sublinear time. Each text is reduced to its
+ * word-bigram shingles and a MinHash signature; signatures are split into
+ * bands, and only texts sharing at least one whole band with the query are
+ * compared. The Jaccard similarity of two texts is estimated as the share
+ * of signature positions on which they agree.
+ *
+ * With b bands of r rows, pairs above roughly (1/b)^(1/r) similarity are
+ * very likely to become candidates; the defaults (20 x 5) put that near 0.55.
+ */
+public class MinHashIndex {
+
+    private final int bands;
+    private final int rows;
+    private final long[] seeds;
+
+    private final Map<String, int[]> signatures = new HashMap<>();
+    private final Map<Long, List<String>> buckets = new HashMap<>();
+
+    public MinHashIndex() {
+        this(20, 5);
+    }
+
+    public MinHashIndex(int bands, int rows) {
+        this.bands = bands;
+        this.rows = rows;
+        this.seeds = new long[bands * rows];
+        // Fixed seeds, so signatures are comparable across indexes and restarts
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < seeds.length; i++) {
+            seed = mix(seed + i);
+            seeds[i] = seed;
+        }
+    }
+
+    public synchronized int size() {
+        return signatures.size();
+    }
+
+    /**
+     * Indexes a signature under an id; an id already present is left as it is
+     */
+    public synchronized void add(String id, int[] signature) {
+        if (signatures.putIfAbsent(id, signature) != null) {
+            return;
+        }
+        for (int band = 0; band < bands; band++) {
+            buckets.computeIfAbsent(bandKey(signature, band), key -> new ArrayList<>(1)).add(id);
+        }
+    }
+
+    /**
+     * Id of the most similar indexed text at or above the threshold, if any
+     */
+    public synchronized Optional<String> findSimilar(int[] signature, double threshold) {
+        Set<String> candidates = new HashSet<>();
+        for (int band = 0; band < bands; band++) {
+            List<String> bucket = buckets.get(bandKey(signature, band));
+            if (bucket != null) {
+                candidates.addAll(bucket);
+            }
+        }
+
+        String best = null;
+        double bestSimilarity = threshold;
+        for (String candidate : candidates) {
+            double similarity = similarity(signature, signatures.get(candidate));
+            if (similarity >= bestSimilarity) {
+                best = candidate;
+                bestSimilarity = similarity;
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    /**
+     * MinHash signature of the text's word-bigram shingles
+     */
+    public int[] signature(String text) {
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (String shingle : shingles(text)) {
+            long base = shingle.hashCode();
+            for (int i = 0; i < seeds.length; i++) {
+                int hash = (int) (mix(base ^ seeds[i]) >>> 33);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Estimated Jaccard similarity of two signatures
+     */
+    public static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    /**
+     * Lower-cased word bigrams, ignoring punctuation; a single word is its own shingle
+     */
+    public static Set<String> shingles(String text) {
+        String[] words = (text == null ? "" : text)
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{N}]+", " ")
+                .trim()
+                .split(" ");
+        Set<String> shingles = new HashSet<>();
+        if (words.length == 1) {
+            shingles.add(words[0]);
+        }
+        for (int i = 0; i + 1 < words.length; i++) {
+            shingles.add(words[i] + " " + words[i + 1]);
+        }
+        return shingles;
+    }
+
+    // The band number is folded in, so equal rows in different bands do not collide
+    private long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int row = band * rows; row < (band + 1) * rows; row++) {
+            key = mix(key * 31 + signature[row]);
+        }
+        return key;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,99 @@
+package com.CollegeResources.utils;
+
+import java.util.*;
+
+/**
+ * Space-Saving heavy-hitters summary with forward exponential decay.
+ *
+ * Keeps at most {@code capacity} counters no matter how many distinct items
+ * are seen. Each hit is weighted by exp(lambda * (t - landmark)), so older
+ * hits count less without ever touching stored counters; the landmark is
+ * moved forward and counters rescaled before the weights can overflow.
+ */
+public class SpaceSavingSketch {
+
+    private final int capacity;
+    private final double lambda;
+    private long landmarkMillis;
+
+    private final Map<String, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> byCount = new TreeSet<>(
+            Comparator.comparingDouble((Counter c) -> c.count).thenComparing(c -> c.item));
+
+    /**
+     * @param capacity maximum number of tracked items
+     * @param halfLifeMillis time after which a hit counts half as much
+     */
+    public SpaceSavingSketch(int capacity, long halfLifeMillis, long nowMillis) {
+        this.capacity = capacity;
+        this.lambda = Math.log(2) / halfLifeMillis;
+        this.landmarkMillis = nowMillis;
+    }
+
+    public synchronized void add(String item, long nowMillis) {
+        double weight = Math.exp(lambda * (nowMillis - landmarkMillis));
+        if (weight > 1e12) {
+            rescale(nowMillis);
+            weight = 1.0;
+        }
+
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            byCount.remove(counter);
+            counter.count += weight;
+        } else if (counters.size() < capacity) {
+            counter = new Counter(item, weight, 0);
+            counters.put(item, counter);
+        } else {
+            // Evict the smallest counter; the newcomer inherits its count as error bound
+            Counter min = byCount.pollFirst();
+            counters.remove(min.item);
+            counter = new Counter(item, min.count + weight, min.count);
+            counters.put(item, counter);
+        }
+        byCount.add(counter);
+    }
+
+    /**
+     * Returns up to k items with their decayed counts as of nowMillis, highest first
+     */
+    public synchronized List<Map.Entry<String, Double>> top(int k, long nowMillis) {
+        double decay = Math.exp(-lambda * (nowMillis - landmarkMillis));
+        List<Map.Entry<String, Double>> result = new ArrayList<>(Math.min(k, counters.size()));
+
+        Iterator<Counter> it = byCount.descendingIterator();
+        while (it.hasNext() && result.size() < k) {
+            Counter counter = it.next();
+            result.add(Map.entry(counter.item, counter.count * decay));
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return counters.size();
+    }
+
+    private void rescale(long nowMillis) {
+        double factor = Math.exp(-lambda * (nowMillis - landmarkMillis));
+        List<Counter> all = new ArrayList<>(byCount);
+        byCount.clear();
+        for (Counter counter : all) {
+            counter.count *= factor;
+            counter.error *= factor;
+            byCount.add(counter);
+        }
+        landmarkMillis = nowMillis;
+    }
+
+    private static final class Counter {
+        private final String item;
+        private double count;
+        private double error;
+
+        private Counter(String item, double count, double error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
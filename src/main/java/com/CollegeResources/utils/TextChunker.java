@@ -0,0 +1,62 @@
+package com.CollegeResources.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits extracted paper text into chunks of roughly {@code maxChars}
+ * characters. Chunks break on blank lines where possible so a question and
+ * its options usually stay together; paragraphs longer than the limit are
+ * cut on line or word boundaries.
+ */
+public class TextChunker {
+
+    private TextChunker() {
+    }
+
+    public static List<String> split(String text, int maxChars) {
+        List<String> chunks = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return chunks;
+        }
+
+        StringBuilder current = new StringBuilder();
+        for (String paragraph : text.replace("\r\n", "\n").split("\n\\s*\n")) {
+            paragraph = paragraph.strip();
+            if (paragraph.isEmpty()) {
+                continue;
+            }
+
+            if (current.length() > 0 && current.length() + paragraph.length() + 2 > maxChars) {
+                chunks.add(current.toString());
+                current.setLength(0);
+            }
+
+            while (paragraph.length() > maxChars) {
+                int cut = breakPoint(paragraph, maxChars);
+                chunks.add(paragraph.substring(0, cut).strip());
+                paragraph = paragraph.substring(cut).strip();
+            }
+
+            if (!paragraph.isEmpty()) {
+                if (current.length() > 0) {
+                    current.append("\n\n");
+                }
+                current.append(paragraph);
+            }
+        }
+
+        if (current.length() > 0) {
+            chunks.add(current.toString());
+        }
+        return chunks;
+    }
+
+    private static int breakPoint(String paragraph, int maxChars) {
+        int cut = paragraph.lastIndexOf('\n', maxChars);
+        if (cut <= maxChars / 2) {
+            cut = paragraph.lastIndexOf(' ', maxChars);
+        }
+        return cut <= maxChars / 2 ? maxChars : cut;
+    }
+}
@@ -0,0 +1,144 @@
+package com.CollegeResources.retrieval;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reports build time, recall@k against brute force, search latency, reader
+ * throughput and reopen time for {@link HnswIndex}. Run as a plain main:
+ * HnswIndexBenchmark [vectors] [dimensions] [queries].
+ */
+public class HnswIndexBenchmark {
+
+    private static final int K = 10;
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int dimension = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+        int queryCount = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+
+        Random random = new Random(7);
+        float[][] data = clustered(random, count, dimension, 64);
+        float[][] queries = clustered(random, queryCount, dimension, 64);
+
+        Path directory = Files.createTempDirectory("hnsw-bench");
+        HnswIndex index = HnswIndex.open(directory, 16, 100);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            index.add("v" + i, "course" + (i % 4), data[i]);
+        }
+        index.flush();
+        System.out.printf("Built %d x %d in %.1f s%n", count, dimension, (System.nanoTime() - start) / 1e9);
+
+        List<Set<String>> truth = new ArrayList<>();
+        for (float[] query : queries) {
+            truth.add(bruteForce(data, query, null));
+        }
+
+        for (int ef : new int[]{16, 32, 64, 128, 256}) {
+            long[] latencies = new long[queryCount];
+            double recall = 0;
+            for (int q = 0; q < queryCount; q++) {
+                long t = System.nanoTime();
+                List<HnswIndex.Result> results = index.search(queries[q], K, ef, null);
+                latencies[q] = System.nanoTime() - t;
+                recall += overlap(results, truth.get(q));
+            }
+            Arrays.sort(latencies);
+            System.out.printf("ef=%-4d recall@%d=%.3f  p50=%.3f ms  p99=%.3f ms%n", ef, K, recall / queryCount,
+                    latencies[queryCount / 2] / 1e6, latencies[queryCount * 99 / 100] / 1e6);
+        }
+
+        // Filtered search against brute force over one label
+        double filteredRecall = 0;
+        for (float[] query : queries) {
+            filteredRecall += overlap(index.search(query, K, 64, "course1"), bruteForce(data, query, 1));
+        }
+        System.out.printf("label filter recall@%d=%.3f%n", K, filteredRecall / queryCount);
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (float[] query : queries) {
+                    index.search(query, K, 64, null);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d readers: %.0f queries/s%n", threads, threads * queryCount / seconds);
+
+        index.close();
+        start = System.nanoTime();
+        HnswIndex reopened = HnswIndex.open(directory, 16, 100);
+        System.out.printf("Reopened %d vectors in %.1f ms%n", reopened.size(), (System.nanoTime() - start) / 1e6);
+        reopened.close();
+    }
+
+    private static float[][] clustered(Random random, int count, int dimension, int clusters) {
+        Random centres = new Random(11);
+        float[][] centroids = new float[clusters][dimension];
+        for (float[] centroid : centroids) {
+            for (int i = 0; i < dimension; i++) {
+                centroid[i] = (float) centres.nextGaussian();
+            }
+        }
+        float[][] vectors = new float[count][dimension];
+        for (float[] vector : vectors) {
+            float[] centroid = centroids[random.nextInt(clusters)];
+            for (int i = 0; i < dimension; i++) {
+                vector[i] = centroid[i] + (float) random.nextGaussian() * 0.6f;
+            }
+        }
+        return vectors;
+    }
+
+    private static Set<String> bruteForce(float[][] data, float[] query, Integer label) {
+        PriorityQueue<double[]> best = new PriorityQueue<>(Comparator.comparingDouble(e -> e[0]));
+        for (int i = 0; i < data.length; i++) {
+            if (label != null && i % 4 != label) {
+                continue;
+            }
+            best.add(new double[]{cosine(data[i], query), i});
+            if (best.size() > K) {
+                best.poll();
+            }
+        }
+        Set<String> ids = new HashSet<>();
+        for (double[] entry : best) {
+            ids.add("v" + (int) entry[1]);
+        }
+        return ids;
+    }
+
+    private static double overlap(List<HnswIndex.Result> results, Set<String> truth) {
+        int hits = 0;
+        for (HnswIndex.Result result : results) {
+            if (truth.contains(result.getId())) {
+                hits++;
+            }
+        }
+        return (double) hits / K;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0, na = 0, nb = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return dot / Math.sqrt(na * nb);
+    }
+}
@@ -0,0 +1,169 @@
+package com.CollegeResources.retrieval;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HnswIndexTest {
+
+    private static final int DIMENSION = 16;
+
+    @TempDir
+    Path directory;
+
+    private final Random random = new Random(11);
+
+    @Test
+    void findsTheExactVector() throws IOException {
+        float[][] vectors = randomVectors(300);
+        try (HnswIndex index = HnswIndex.open(directory, 8, 64)) {
+            addAll(index, vectors, 0, vectors.length);
+
+            for (int i = 0; i < vectors.length; i += 17) {
+                List<HnswIndex.Result> results = index.search(vectors[i], 1, 64, null);
+                assertEquals("v" + i, results.get(0).getId());
+                assertEquals(1.0f, results.get(0).getScore(), 1e-4);
+            }
+        }
+    }
+
+    @Test
+    void filtersByLabel() throws IOException {
+        float[][] vectors = randomVectors(200);
+        try (HnswIndex index = HnswIndex.open(directory, 8, 64)) {
+            addAll(index, vectors, 0, vectors.length);
+
+            List<HnswIndex.Result> results = index.search(vectors[4], 10, 64, "label1");
+            assertEquals(10, results.size());
+            for (HnswIndex.Result result : results) {
+                assertEquals(1, Integer.parseInt(result.getId().substring(1)) % 2);
+            }
+            assertTrue(index.search(vectors[4], 10, 64, "unknown").isEmpty());
+        }
+    }
+
+    @Test
+    void aSmallAllowedSetIsNotCrowdedOut() throws IOException {
+        float[][] vectors = randomVectors(300);
+        try (HnswIndex index = HnswIndex.open(directory, 8, 64)) {
+            addAll(index, vectors, 0, vectors.length);
+
+            // The nearest vectors to v0 are not allowed, yet all three allowed ones come back
+            Set<String> allowed = Set.of("v7", "v150", "v299");
+            List<HnswIndex.Result> results = index.search(vectors[0], 5, 16, null, allowed);
+            assertEquals(allowed, results.stream().map(HnswIndex.Result::getId).collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    void deletedAndReplacedVectorsAreNotReturned() throws IOException {
+        float[][] vectors = randomVectors(200);
+        try (HnswIndex index = HnswIndex.open(directory, 8, 64)) {
+            addAll(index, vectors, 0, vectors.length);
+
+            assertTrue(index.delete("v10"));
+            assertFalse(index.delete("v10"));
+            assertNotEquals("v10", index.search(vectors[10], 1, 64, null).get(0).getId());
+
+            // Re-adding an id replaces its vector
+            index.add("v20", "label0", vectors[30]);
+            assertEquals(2, index.deletedCount());
+            assertEquals(199, index.size());
+            assertNotEquals("v20", index.search(vectors[20], 1, 64, null).get(0).getId());
+        }
+    }
+
+    @Test
+    void reopensWithEverythingFlushed() throws IOException {
+        float[][] vectors = randomVectors(300);
+        try (HnswIndex index = HnswIndex.open(directory, 8, 64)) {
+            addAll(index, vectors, 0, 200);
+            index.flush();
+            addAll(index, vectors, 200, 300);
+            index.delete("v5");
+        }
+
+        try (HnswIndex reopened = HnswIndex.open(directory, 8, 64)) {
+            assertEquals(299, reopened.size());
+            assertEquals("v250", reopened.search(vectors[250], 1, 64, null).get(0).getId());
+            assertNotEquals("v5", reopened.search(vectors[5], 1, 64, null).get(0).getId());
+        }
+    }
+
+    @Test
+    void unflushedChangesNeverCorruptTheIndex() throws IOException {
+        float[][] vectors = randomVectors(400);
+        HnswIndex index = HnswIndex.open(directory, 8, 64);
+        addAll(index, vectors, 0, 200);
+        index.flush();
+        // Not flushed: as after a crash, with the mapped pages possibly on disk
+        addAll(index, vectors, 200, 400);
+
+        try (HnswIndex reopened = HnswIndex.open(directory, 8, 64)) {
+            assertEquals(200, reopened.size());
+            for (int q = 0; q < 100; q++) {
+                List<HnswIndex.Result> results = reopened.search(randomVector(), 10, 64, null);
+                assertEquals(10, results.size());
+                for (HnswIndex.Result result : results) {
+                    assertTrue(Integer.parseInt(result.getId().substring(1)) < 200);
+                }
+            }
+        }
+        index.close();
+    }
+
+    @Test
+    void compactionDropsDeletedNodesAndSurvivesReopen() throws IOException {
+        float[][] vectors = randomVectors(300);
+        try (HnswIndex index = HnswIndex.open(directory, 8, 64)) {
+            addAll(index, vectors, 0, vectors.length);
+            for (int i = 0; i < 150; i++) {
+                index.delete("v" + i);
+            }
+
+            assertTrue(index.compact());
+            assertEquals(0, index.deletedCount());
+            assertEquals(150, index.size());
+            assertEquals("v200", index.search(vectors[200], 1, 64, null).get(0).getId());
+            assertFalse(Files.exists(directory.resolve("vectors.bin")));
+
+            index.add("v0", "label0", vectors[0]);
+        }
+
+        try (HnswIndex reopened = HnswIndex.open(directory, 8, 64)) {
+            assertEquals(151, reopened.size());
+            assertEquals("v0", reopened.search(vectors[0], 1, 64, null).get(0).getId());
+        }
+    }
+
+    private void addAll(HnswIndex index, float[][] vectors, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            index.add("v" + i, "label" + (i % 2), vectors[i]);
+        }
+    }
+
+    private float[][] randomVectors(int count) {
+        float[][] vectors = new float[count][];
+        for (int i = 0; i < count; i++) {
+            vectors[i] = randomVector();
+        }
+        return vectors;
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
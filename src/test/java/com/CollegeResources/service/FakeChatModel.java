@@ -0,0 +1,81 @@
+package com.CollegeResources.service;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chat model for tests with injectable latency and failures. Latencies
+ * queued with thenRespondAfter are used one per call before falling back to
+ * the default latency.
+ */
+class FakeChatModel implements ChatModel {
+
+    private final Queue<Long> queuedLatencies = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile long latencyMs;
+    private volatile boolean failing;
+    private volatile boolean ignoreInterrupts;
+    private volatile String response = "[]";
+
+    FakeChatModel respondAfter(long latencyMs) {
+        this.latencyMs = latencyMs;
+        return this;
+    }
+
+    FakeChatModel thenRespondAfter(long... latencies) {
+        for (long latency : latencies) {
+            queuedLatencies.add(latency);
+        }
+        return this;
+    }
+
+    FakeChatModel failing(boolean failing) {
+        this.failing = failing;
+        return this;
+    }
+
+    // Like an HTTP client blocked in a read, the call runs to the end even when interrupted
+    FakeChatModel ignoringInterrupts() {
+        this.ignoreInterrupts = true;
+        return this;
+    }
+
+    FakeChatModel respondWith(String response) {
+        this.response = response;
+        return this;
+    }
+
+    int getCalls() {
+        return calls.get();
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        calls.incrementAndGet();
+        Long queued = queuedLatencies.poll();
+        long latency = queued != null ? queued : latencyMs;
+        long deadline = System.nanoTime() + latency * 1_000_000L;
+        while (latency > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(Math.max(1, (deadline - System.nanoTime()) / 1_000_000L));
+            } catch (InterruptedException e) {
+                if (!ignoreInterrupts) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Cancelled");
+                }
+            }
+        }
+        if (failing) {
+            throw new IllegalStateException("Provider error");
+        }
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(response))));
+    }
+}
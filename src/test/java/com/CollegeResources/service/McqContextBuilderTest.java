@@ -0,0 +1,79 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.model.StudyMaterial;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class McqContextBuilderTest {
+
+    private final McqContextBuilder builder = builder();
+
+    private static McqContextBuilder builder() {
+        McqContextBuilder builder = new McqContextBuilder();
+        // Small enough that every paragraph below is a chunk of its own
+        ReflectionTestUtils.setField(builder, "chunkChars", 60);
+        ReflectionTestUtils.setField(builder, "maxTokens", 3000);
+        return builder;
+    }
+
+    private static StudyMaterial paper(String fileName) {
+        StudyMaterial material = new StudyMaterial();
+        material.setFileName(fileName);
+        return material;
+    }
+
+    @Test
+    void theMostRelevantChunkWinsATightBudget() {
+        Map<StudyMaterial, String> texts = Map.of(paper("dsa.pdf"), String.join("\n\n",
+                "Photosynthesis converts light into chemical energy.",
+                "Binary search trees keep their keys in sorted order.",
+                "A cricket test match can last for five days."));
+
+        int budget = builder.countTokens("=== dsa.pdf ===\nBinary search trees keep their keys in sorted order.\n\n") + 2;
+        String context = builder.build(texts, List.of("binary search trees"), budget);
+
+        assertTrue(context.contains("Binary search trees"), context);
+        assertFalse(context.contains("Photosynthesis"), context);
+        assertFalse(context.contains("cricket"), context);
+        assertTrue(builder.countTokens(context) <= budget);
+    }
+
+    @Test
+    void passagesKeepPaperAndDocumentOrder() {
+        Map<StudyMaterial, String> texts = new LinkedHashMap<>();
+        texts.put(paper("first.pdf"), "Stacks are last in, first out.\n\nQueues are first in, first out.");
+        texts.put(paper("second.pdf"), "Heaps give the minimum in constant time.");
+
+        String context = builder.build(texts, List.of("queues", "heaps"), Integer.MAX_VALUE);
+
+        assertEquals("=== first.pdf ===\nStacks are last in, first out.\n\nQueues are first in, first out.\n\n"
+                + "=== second.pdf ===\nHeaps give the minimum in constant time.\n\n", context);
+    }
+
+    @Test
+    void aPaperHeaderIsOnlyPaidForOnce() {
+        // A header far larger than any chunk: charging it per chunk would leave room for one chunk only
+        String fileName = "previous year question paper ".repeat(10).strip() + ".pdf";
+        Map<StudyMaterial, String> texts = Map.of(paper(fileName), String.join("\n\n",
+                "Stacks are last in, first out.",
+                "Queues are first in, first out.",
+                "Heaps give the minimum in constant time.",
+                "Tries index strings by prefix."));
+
+        String everything = builder.build(texts, List.of("stacks"), Integer.MAX_VALUE);
+        String context = builder.build(texts, List.of("stacks"), builder.countTokens(everything) + 8);
+
+        assertEquals(everything, context);
+    }
+
+    @Test
+    void noTextGivesNoContext() {
+        assertEquals("", builder.build(Map.of(paper("empty.pdf"), "  "), List.of("stacks"), 100));
+    }
+}
@@ -0,0 +1,107 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.model.QuizAttempt;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.WriteConcernError;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class QuizAttemptServiceTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulk = mock(BulkOperations.class);
+    // Ids of each batch handed to a bulk insert, in call order
+    private final List<List<String>> inserted = new ArrayList<>();
+
+    private QuizAttemptService service;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.stream(any(Query.class), eq(QuizAttempt.class))).thenReturn(Stream.empty());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, QuizAttempt.class)).thenReturn(bulk);
+        when(bulk.insert(anyList())).thenAnswer(invocation -> {
+            List<?> batch = invocation.getArgument(0);
+            inserted.add(batch.stream().map(attempt -> ((QuizAttempt) attempt).getId()).toList());
+            return bulk;
+        });
+
+        service = new QuizAttemptService(mongoTemplate, mock(QuestionBankService.class), mock(ReviewScheduleService.class));
+        ReflectionTestUtils.setField(service, "maxPending", 10);
+        ReflectionTestUtils.setField(service, "flushBatchSize", 2);
+        service.loadLeaderboards();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void queue(String... ids) {
+        Queue<QuizAttempt> pending = (Queue<QuizAttempt>) ReflectionTestUtils.getField(service, "pending");
+        for (String id : ids) {
+            QuizAttempt attempt = new QuizAttempt();
+            attempt.setId(id);
+            pending.add(attempt);
+        }
+    }
+
+    @Test
+    void aFailedBatchIsRetriedBeforeNewAttempts() {
+        queue("a", "b", "c");
+        when(bulk.execute())
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenThrow(new DataAccessResourceFailureException("still down"))
+                .thenReturn(null);
+
+        service.flush();
+        service.flush();
+        assertEquals(List.of(List.of("a", "b"), List.of("a", "b")), inserted);
+
+        service.flush();
+        assertEquals(List.of(List.of("a", "b"), List.of("a", "b"), List.of("a", "b"), List.of("c")), inserted);
+    }
+
+    @Test
+    void duplicatesAreStoredAndRejectedAttemptsDropped() {
+        queue("a", "b");
+        BulkOperationException failure = mock(BulkOperationException.class);
+        when(failure.getErrors()).thenReturn(List.of(
+                new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0),
+                new BulkWriteError(121, "document failed validation", new BsonDocument(), 1)));
+        when(bulk.execute()).thenThrow(failure).thenReturn(null);
+
+        service.flush();
+        service.flush();
+
+        assertEquals(List.of(List.of("a", "b")), inserted);
+    }
+
+    @Test
+    void unacknowledgedBatchesRetryAllButRejectedAttempts() {
+        queue("a", "b");
+        BulkOperationException failure = mock(BulkOperationException.class);
+        when(failure.getErrors()).thenReturn(List.of(
+                new BulkWriteError(121, "document failed validation", new BsonDocument(), 0)));
+        when(failure.getWriteConcernError()).thenReturn(new WriteConcernError(64, "", "timeout", new BsonDocument()));
+        when(bulk.execute()).thenThrow(failure).thenReturn(null);
+
+        service.flush();
+        service.flush();
+
+        assertEquals(List.of(List.of("a", "b"), List.of("b")), inserted);
+    }
+}
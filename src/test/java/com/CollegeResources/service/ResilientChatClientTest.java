@@ -0,0 +1,129 @@
+package com.CollegeResources.service;
+
+import com.CollegeResources.utils.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilientChatClientTest {
+
+    private final FakeChatModel model = new FakeChatModel();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private ResilientChatClient client(long timeoutMs, int maxConcurrent, boolean hedge) {
+        ResilientChatClient client = new ResilientChatClient(model, registry);
+        ReflectionTestUtils.setField(client, "timeoutMs", timeoutMs);
+        ReflectionTestUtils.setField(client, "maxConcurrent", maxConcurrent);
+        ReflectionTestUtils.setField(client, "bulkheadWaitMs", 0L);
+        ReflectionTestUtils.setField(client, "failureRateThreshold", 0.5);
+        ReflectionTestUtils.setField(client, "circuitWindow", 4);
+        ReflectionTestUtils.setField(client, "circuitMinimumCalls", 4);
+        ReflectionTestUtils.setField(client, "circuitOpenMs", 200L);
+        ReflectionTestUtils.setField(client, "hedgeEnabled", hedge);
+        ReflectionTestUtils.setField(client, "hedgePercentile", 0.95);
+        ReflectionTestUtils.setField(client, "hedgeMinSamples", 5);
+        client.init();
+        return client;
+    }
+
+    @Test
+    void callsPastTheDeadlineFailFast() {
+        ResilientChatClient client = client(100, 4, false);
+        model.respondAfter(2000);
+
+        long start = System.nanoTime();
+        assertThrows(ResilientChatClient.ModelUnavailableException.class, () -> client.call(new Prompt("q")));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertEquals(1, registry.counter("mcq.model.calls", "outcome", "timeout").count());
+    }
+
+    @Test
+    void circuitOpensAfterFailuresAndClosesAfterASuccessfulTrial() throws Exception {
+        ResilientChatClient client = client(1000, 4, false);
+        model.failing(true);
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IllegalStateException.class, () -> client.call(new Prompt("q")));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+
+        // Rejected without reaching the model
+        assertThrows(ResilientChatClient.ModelUnavailableException.class, () -> client.call(new Prompt("q")));
+        assertEquals(4, model.getCalls());
+
+        Thread.sleep(250);
+        model.failing(false);
+        assertNotNull(client.call(new Prompt("q")));
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitState());
+        assertEquals(1, registry.counter("mcq.model.circuit.transitions", "from", "CLOSED", "to", "OPEN").count());
+        assertEquals(1, registry.counter("mcq.model.circuit.transitions", "from", "HALF_OPEN", "to", "CLOSED").count());
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondTheLimit() throws Exception {
+        ResilientChatClient client = client(2000, 1, false);
+        model.respondAfter(300);
+
+        CompletableFuture<?> first = CompletableFuture.runAsync(() -> client.call(new Prompt("q")));
+        Thread.sleep(50);
+        assertThrows(ResilientChatClient.ModelUnavailableException.class, () -> client.call(new Prompt("q")));
+        first.get();
+        assertEquals(1, registry.counter("mcq.model.calls", "outcome", "rejected_bulkhead").count());
+    }
+
+    @Test
+    void timedOutCallsKeepTheirSlotUntilTheyFinish() throws Exception {
+        ResilientChatClient client = client(100, 1, false);
+        model.respondAfter(500).ignoringInterrupts();
+
+        AtomicInteger discarded = new AtomicInteger();
+        assertThrows(ResilientChatClient.ModelUnavailableException.class,
+                () -> client.call(new Prompt("q"), response -> discarded.incrementAndGet()));
+
+        // The abandoned call is still running against the provider
+        assertThrows(ResilientChatClient.ModelUnavailableException.class, () -> client.call(new Prompt("q")));
+        assertEquals(1, registry.counter("mcq.model.calls", "outcome", "rejected_bulkhead").count());
+
+        Thread.sleep(600);
+        assertEquals(1, discarded.get());
+        model.respondAfter(0);
+        assertNotNull(client.call(new Prompt("q")));
+    }
+
+    @Test
+    void slowCallsAreHedged() {
+        ResilientChatClient client = client(5000, 4, true);
+        model.respondAfter(20);
+        for (int i = 0; i < 5; i++) {
+            client.call(new Prompt("q"));
+        }
+
+        // The first attempt stalls; the hedge answers at normal speed
+        model.thenRespondAfter(3000);
+        long start = System.nanoTime();
+        assertNotNull(client.call(new Prompt("q")));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertEquals(1, registry.counter("mcq.model.hedges").count());
+    }
+
+    @Test
+    void theLosingHedgeIsReportedAsDiscarded() throws Exception {
+        ResilientChatClient client = client(5000, 4, true);
+        model.respondAfter(20).ignoringInterrupts();
+        for (int i = 0; i < 5; i++) {
+            client.call(new Prompt("q"));
+        }
+
+        model.thenRespondAfter(300);
+        AtomicInteger discarded = new AtomicInteger();
+        assertNotNull(client.call(new Prompt("q"), response -> discarded.incrementAndGet()));
+        Thread.sleep(400);
+        assertEquals(1, discarded.get());
+    }
+}
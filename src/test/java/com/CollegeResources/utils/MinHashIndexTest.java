@@ -0,0 +1,83 @@
+package com.CollegeResources.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinHashIndexTest {
+
+    private static final String QUESTION = "Which data structure returns elements in last in first out order "
+            + "when items are pushed and popped during a depth first traversal of a graph";
+    // One word changed: about 0.8 Jaccard similarity on word bigrams
+    private static final String REWORDED = "Which data structure returns elements in last in first out order "
+            + "when items are pushed and popped during a depth first search of a graph";
+
+    @Test
+    void findsAnIdenticalQuestion() {
+        MinHashIndex index = new MinHashIndex();
+        index.add("q1", index.signature(QUESTION));
+
+        assertEquals(Optional.of("q1"), index.findSimilar(index.signature(QUESTION.toUpperCase() + "?"), 0.99));
+    }
+
+    @Test
+    void nearDuplicatesMatchOnlyUpToTheirSimilarity() {
+        MinHashIndex index = new MinHashIndex();
+        index.add("q1", index.signature(QUESTION));
+        int[] reworded = index.signature(REWORDED);
+
+        double similarity = MinHashIndex.similarity(index.signature(QUESTION), reworded);
+        assertTrue(similarity > 0.6 && similarity < 0.95, "similarity " + similarity);
+        assertEquals(Optional.of("q1"), index.findSimilar(reworded, 0.6));
+        assertTrue(index.findSimilar(reworded, 0.95).isEmpty());
+    }
+
+    @Test
+    void unrelatedQuestionsDoNotMatch() {
+        MinHashIndex index = new MinHashIndex();
+        index.add("q1", index.signature(QUESTION));
+
+        assertTrue(index.findSimilar(index.signature("What is the time complexity of binary search on a sorted array"), 0.3)
+                .isEmpty());
+    }
+
+    @Test
+    void onlyTextsSharingAWholeBandAreCandidates() {
+        MinHashIndex index = new MinHashIndex(2, 2);
+        index.add("a", new int[]{1, 2, 3, 4});
+
+        // Both agree with "a" on half the rows, but only the first on a whole band
+        assertEquals(Optional.of("a"), index.findSimilar(new int[]{1, 2, 9, 9}, 0.5));
+        assertTrue(index.findSimilar(new int[]{1, 9, 3, 9}, 0.5).isEmpty());
+    }
+
+    @Test
+    void moreRowsPerBandMakeCandidatesStricter() {
+        MinHashIndex loose = new MinHashIndex(100, 1);
+        MinHashIndex strict = new MinHashIndex(1, 100);
+        loose.add("q1", loose.signature(QUESTION));
+        strict.add("q1", strict.signature(QUESTION));
+
+        assertTrue(loose.findSimilar(loose.signature(REWORDED), 0).isPresent());
+        assertTrue(strict.findSimilar(strict.signature(REWORDED), 0).isEmpty());
+    }
+
+    @Test
+    void anIdIsOnlyIndexedOnce() {
+        MinHashIndex index = new MinHashIndex();
+        index.add("q1", index.signature(QUESTION));
+        index.add("q1", index.signature("something else entirely"));
+
+        assertEquals(1, index.size());
+        assertEquals(Optional.of("q1"), index.findSimilar(index.signature(QUESTION), 0.99));
+    }
+
+    @Test
+    void shinglesAreLowerCasedWordBigrams() {
+        assertEquals(Set.of("stack is", "is lifo"), MinHashIndex.shingles("Stack, is LIFO!"));
+        assertEquals(Set.of("queue"), MinHashIndex.shingles("Queue"));
+    }
+}
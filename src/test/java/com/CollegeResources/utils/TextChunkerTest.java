@@ -0,0 +1,52 @@
+package com.CollegeResources.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextChunkerTest {
+
+    @Test
+    void blankTextHasNoChunks() {
+        assertTrue(TextChunker.split(null, 100).isEmpty());
+        assertTrue(TextChunker.split(" \n\n \n", 100).isEmpty());
+    }
+
+    @Test
+    void shortParagraphsShareAChunk() {
+        List<String> chunks = TextChunker.split("Q1. What is a stack?\r\n\r\nA) LIFO  B) FIFO", 100);
+
+        assertEquals(List.of("Q1. What is a stack?\n\nA) LIFO  B) FIFO"), chunks);
+    }
+
+    @Test
+    void paragraphsAreNotSplitToFillAChunk() {
+        String first = "a".repeat(60);
+        String second = "b".repeat(60);
+
+        assertEquals(List.of(first, second), TextChunker.split(first + "\n\n" + second, 100));
+    }
+
+    @Test
+    void longParagraphsAreCutOnWordBoundaries() {
+        String paragraph = "word ".repeat(100).strip();
+
+        List<String> chunks = TextChunker.split(paragraph, 42);
+
+        assertTrue(chunks.size() > 1);
+        for (String chunk : chunks) {
+            assertTrue(chunk.length() <= 42, chunk);
+            assertTrue(chunk.matches("word( word)*"), chunk);
+        }
+        assertEquals(paragraph, String.join(" ", chunks));
+    }
+
+    @Test
+    void unbreakableTextIsCutAtTheLimit() {
+        List<String> chunks = TextChunker.split("x".repeat(250), 100);
+
+        assertEquals(List.of("x".repeat(100), "x".repeat(100), "x".repeat(50)), chunks);
+    }
+}